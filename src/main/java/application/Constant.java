@@ -13,6 +13,16 @@ public class Constant {
 
     public static final int INPUT_COOLDOWN_MILLIS = 150;
     public static final int MAX_ENTITY_LIMIT = 1024;
+    public static final int PARALLEL_PARSE_MIN_CELLS = 4096;
+
+    public static final long TIMELINE_PREFETCH_BUDGET_NANOS = 4_000_000L;
+    public static final int TIMELINE_REPEAT_DELAY_FRAMES = 15;
+    public static final int TIMELINE_ACCELERATION_FRAMES = 30;
+    public static final int TIMELINE_BAR_HEIGHT = 12;
+    public static final double TIMELINE_TEXT_SCALE = 1.0;
+
+    public static final int MEMORY_SAMPLE_FRAMES = 30;
+    public static final double DEBUG_OVERLAY_TEXT_SCALE = 1.0;
 
     public static final int SPRITE_SIZE = 32;
     public static final int MILLISECONDS_PER_FRAME = 150;
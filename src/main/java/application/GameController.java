@@ -3,13 +3,16 @@ package application;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
+import logic.input.InputCommand;
+import logic.input.InputUtility;
 import model.map.LevelLoader;
 import model.map.LevelMap;
 import state.*;
+import utils.GraphicUtils;
 
 import java.util.*;
 
-import static application.Constant.WIN_DELAY_MILLIS;
+import static application.Constant.*;
 
 /**
  * A singleton class that manages the overall state of the game.
@@ -35,6 +38,9 @@ public class GameController {
     private boolean isWinSequenceActive;
     private long winSequenceStartTime;
 
+    private boolean isDebugOverlayVisible;
+    private long frameCount;
+
     private GameController() {
         stateMap = new HashMap<>();
         completedLevels = new HashSet<>();
@@ -111,6 +117,12 @@ public class GameController {
     }
 
     public void update() {
+        if(InputUtility.getTriggered() == InputCommand.DEBUG) {
+            isDebugOverlayVisible = !isDebugOverlayVisible;
+        }
+        if(frameCount++ % MEMORY_SAMPLE_FRAMES == 0) {
+            MemoryStats.getInstance().sample((PlayingState) getGameState(GameStateEnum.PLAYING));
+        }
         if(currentState != null) {
             currentState.update();
         }
@@ -153,5 +165,28 @@ public class GameController {
             return;
         }
         currentState.render(gc);
+        if(isDebugOverlayVisible) {
+            renderDebugOverlay(gc);
+        }
+    }
+
+    /**
+     * Draws the latest memory estimates of {@link MemoryStats} in the top left corner, one line per estimate.
+     *
+     * @param gc the graphics context to render on
+     */
+    private void renderDebugOverlay(GraphicsContext gc) {
+        List<String> lines = MemoryStats.getInstance().getSummaryLines();
+        double lineHeight = FONT_HEIGHT * DEBUG_OVERLAY_TEXT_SCALE;
+        int maxLength = 0;
+        for (String line : lines) {
+            maxLength = Math.max(maxLength, line.length());
+        }
+
+        gc.setFill(Color.BLACK.deriveColor(0, 1, 1, 0.6));
+        gc.fillRect(0, 0, maxLength * FONT_WIDTH * DEBUG_OVERLAY_TEXT_SCALE + 16, lines.size() * lineHeight + 16);
+        for (int i = 0; i < lines.size(); i++) {
+            GraphicUtils.drawText(gc, lines.get(i), 8, 8 + i * lineHeight, DEBUG_OVERLAY_TEXT_SCALE);
+        }
     }
 }
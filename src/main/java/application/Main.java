@@ -11,7 +11,9 @@ import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 import logic.input.InputUtility;
+import logic.level.turn.TurnProfiler;
 import state.GameStateEnum;
+import state.PlayingState;
 import utils.GraphicUtils;
 
 import java.lang.reflect.Field;
@@ -62,6 +64,16 @@ public class Main extends Application {
         GraphicUtils.applyPostProcessing(root);
 
         gameController.setState(GameStateEnum.TITLE);
+        MemoryStats.getInstance().register();
+
+        // Print the turn phase histogram on exit when profiling was enabled with -Dturn.profiler.enabled
+        PlayingState playingState = (PlayingState) gameController.getGameState(GameStateEnum.PLAYING);
+        TurnProfiler turnProfiler = playingState.getLevelController().getTurnProfiler();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (turnProfiler.isEnabled()) {
+                System.out.print(turnProfiler.dump());
+            }
+        }));
 
         AnimationTimer animation = new AnimationTimer() {
             @Override
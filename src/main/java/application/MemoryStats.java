@@ -0,0 +1,153 @@
+package application;
+
+import logic.level.LevelController;
+import model.map.LevelMap;
+import state.PlayingState;
+import utils.ImageUtils;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A singleton that estimates the heap memory retained by the parts of the game that grow during a session:
+ * the level map, the undo history, the ruleset, the particles and each image cache.
+ * <p>The estimates are taken on the JavaFX application thread by {@link #sample(PlayingState)}, since the measured
+ * structures are not thread-safe, and the latest sample is published for the debug overlay and for JMX clients
+ * under {@link #OBJECT_NAME}.</p>
+ */
+public class MemoryStats implements MemoryStatsMXBean {
+    /** Name the statistics are registered under in the platform MBean server. */
+    public static final String OBJECT_NAME = "application:type=MemoryStats";
+
+    private static MemoryStats instance;
+
+    private volatile long levelMapBytes;
+    private volatile long actionStackBytes;
+    private volatile long rulesetBytes;
+    private volatile long particleBytes;
+    private volatile long colorCacheBytes;
+    private volatile long averageColorCacheBytes;
+    private volatile long scaleCacheBytes;
+    private volatile long sampleTimeMillis;
+
+    private MemoryStats() {
+    }
+
+    public static MemoryStats getInstance() {
+        if (instance == null) {
+            instance = new MemoryStats();
+        }
+        return instance;
+    }
+
+    /** Registers the statistics in the platform MBean server, so they can be watched live over JMX. */
+    public void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            System.err.println("Failed to register memory statistics: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Estimates the memory retained by the current level of the playing state and by the image caches.
+     * Must be called on the JavaFX application thread.
+     *
+     * @param playingState the playing state holding the level and its particles
+     */
+    public void sample(PlayingState playingState) {
+        LevelController levelController = playingState.getLevelController();
+        LevelMap levelMap = levelController.getLevelMap();
+        levelMapBytes = levelMap != null ? levelMap.getMemoryUsage() : 0;
+        actionStackBytes = levelController.getHistoryMemoryUsage();
+        rulesetBytes = levelController.getRuleset().getMemoryUsage();
+        particleBytes = playingState.getParticleMemoryUsage();
+        colorCacheBytes = ImageUtils.getColorCacheMemoryUsage();
+        averageColorCacheBytes = ImageUtils.getAverageColorCacheMemoryUsage();
+        scaleCacheBytes = ImageUtils.getScaleCacheMemoryUsage();
+        sampleTimeMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns one line per estimate of the latest sample, ready to be drawn by the debug overlay.
+     *
+     * @return the labelled estimates, ending with the total
+     */
+    public List<String> getSummaryLines() {
+        return List.of(
+                "MAP " + formatBytes(levelMapBytes),
+                "UNDO " + formatBytes(actionStackBytes),
+                "RULES " + formatBytes(rulesetBytes),
+                "PARTICLES " + formatBytes(particleBytes),
+                "TINT CACHE " + formatBytes(colorCacheBytes),
+                "COLOR CACHE " + formatBytes(averageColorCacheBytes),
+                "SCALE CACHE " + formatBytes(scaleCacheBytes),
+                "TOTAL " + formatBytes(getTotalBytes())
+        );
+    }
+
+    @Override
+    public long getLevelMapBytes() {
+        return levelMapBytes;
+    }
+
+    @Override
+    public long getActionStackBytes() {
+        return actionStackBytes;
+    }
+
+    @Override
+    public long getRulesetBytes() {
+        return rulesetBytes;
+    }
+
+    @Override
+    public long getParticleBytes() {
+        return particleBytes;
+    }
+
+    @Override
+    public long getColorCacheBytes() {
+        return colorCacheBytes;
+    }
+
+    @Override
+    public long getAverageColorCacheBytes() {
+        return averageColorCacheBytes;
+    }
+
+    @Override
+    public long getScaleCacheBytes() {
+        return scaleCacheBytes;
+    }
+
+    @Override
+    public long getTotalBytes() {
+        return levelMapBytes + actionStackBytes + rulesetBytes + particleBytes
+                + colorCacheBytes + averageColorCacheBytes + scaleCacheBytes;
+    }
+
+    @Override
+    public long getSampleTimeMillis() {
+        return sampleTimeMillis;
+    }
+
+    /**
+     * Formats a byte count with the largest unit that keeps it above one.
+     *
+     * @param bytes the byte count
+     * @return the formatted size, such as {@code 12.5KB}
+     */
+    static String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + "B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format(Locale.ROOT, "%.1fKB", bytes / 1024.0);
+        }
+        return String.format(Locale.ROOT, "%.1fMB", bytes / (1024.0 * 1024.0));
+    }
+}
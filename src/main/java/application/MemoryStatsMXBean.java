@@ -0,0 +1,30 @@
+package application;
+
+/**
+ * Management interface exposing the estimated memory retained by the game, for JMX clients such as JConsole.
+ * Every value is in bytes and comes from the latest sample taken by {@link MemoryStats#sample}.
+ */
+public interface MemoryStatsMXBean {
+    long getLevelMapBytes();
+
+    long getActionStackBytes();
+
+    long getRulesetBytes();
+
+    long getParticleBytes();
+
+    long getColorCacheBytes();
+
+    long getAverageColorCacheBytes();
+
+    long getScaleCacheBytes();
+
+    long getTotalBytes();
+
+    /**
+     * Returns when the latest sample was taken.
+     *
+     * @return the sample time in milliseconds since the epoch, or {@code 0} if nothing was sampled yet
+     */
+    long getSampleTimeMillis();
+}
@@ -13,5 +13,7 @@ public enum InputCommand {
     MOVE_RIGHT,
     TRIGGER,
     RESET,
+    TIMELINE,
+    DEBUG,
     MENU
 }
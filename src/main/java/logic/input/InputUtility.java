@@ -60,6 +60,7 @@ public class InputUtility {
             return InputCommand.MENU;
         }
         if(isTriggered(KeyCode.R)) return InputCommand.RESET;
+        if(isTriggered(KeyCode.T)) return InputCommand.TIMELINE;
         if(isTriggered(KeyCode.SPACE) || isTriggered(KeyCode.ENTER)) return InputCommand.TRIGGER;
         if(isTriggered(KeyCode.Z)) return InputCommand.UNDO;
         if(isTriggered(KeyCode.Y)) return InputCommand.REDO;
@@ -67,6 +68,7 @@ public class InputUtility {
         if(isTriggered(KeyCode.DOWN) || isTriggered(KeyCode.S)) return InputCommand.MOVE_DOWN;
         if(isTriggered(KeyCode.LEFT) || isTriggered(KeyCode.A)) return InputCommand.MOVE_LEFT;
         if(isTriggered(KeyCode.RIGHT) || isTriggered(KeyCode.D)) return InputCommand.MOVE_RIGHT;
+        if(isTriggered(KeyCode.F3)) return InputCommand.DEBUG;
         return InputCommand.NONE;
     }
 
@@ -78,6 +80,7 @@ public class InputUtility {
     public static InputCommand getPressed() {
         if(isPressed(KeyCode.ESCAPE)) return InputCommand.MENU;
         if(isPressed(KeyCode.R)) return InputCommand.RESET;
+        if(isPressed(KeyCode.T)) return InputCommand.TIMELINE;
         if(isPressed(KeyCode.SPACE) || isPressed(KeyCode.ENTER)) return InputCommand.TRIGGER;
         if(isPressed(KeyCode.Z)) return InputCommand.UNDO;
         if(isPressed(KeyCode.Y)) return InputCommand.REDO;
@@ -1,9 +1,14 @@
 package logic.level;
 
 import application.Audio;
+import application.GameController;
 import javafx.scene.paint.Color;
 import logic.input.InputCommand;
+import logic.level.turn.BatchOutcome;
+import logic.level.turn.LevelState;
 import logic.level.turn.TurnOrchestrator;
+import logic.level.turn.TurnOutcome;
+import logic.level.turn.TurnProfiler;
 import logic.input.InputUtility;
 import logic.rule.evaluator.RuleEvaluator;
 import logic.rule.parser.RuleParser;
@@ -12,13 +17,16 @@ import model.action.ActionStack;
 import model.action.CompositeAction;
 import model.action.DestroyAction;
 import model.action.MoveAction;
+import model.action.TimelineSeeker;
 import model.entity.Direction;
 import model.entity.Entity;
 import model.entity.TypeRegistry;
 import model.map.LevelMap;
+import model.map.LevelSnapshot;
 import model.particle.Particle;
 import model.particle.ParticleType;
 import model.rule.Rule;
+import model.rule.RuleChange;
 import model.rule.Ruleset;
 import state.PlayingState;
 
@@ -26,41 +34,53 @@ import java.awt.*;
 import java.util.List;
 
 import static application.Constant.INPUT_COOLDOWN_MILLIS;
+import static application.Constant.PARALLEL_PARSE_MIN_CELLS;
 
 /**
  * Manages the game level, processing player inputs, and updating the map state after the inputs.
+ * <p>Turns are played by the headless {@link TurnOrchestrator}; this class only adapts its outcomes
+ * to the UI with sounds, particles, the undo history and the win state.</p>
  */
 public class LevelController {
     private LevelMap levelMap;
-    private LevelMap levelMapPrototype;
+    private LevelSnapshot initialState;
+    private List<Rule> initialRules;
     private final Ruleset ruleset;
     private final RuleParser ruleParser;
     private final ActionStack actionStack;
+    private final TimelineSeeker timelineSeeker;
     private final TurnOrchestrator turnOrchestrator;
+    private final TurnProfiler turnProfiler;
     private final RuleEvaluator ruleEvaluator;
 
     private long lastInputTime = 0L;
 
     private boolean isLose = false;
+    private int skippedParseCount = 0;
 
     public LevelController() {
         this.ruleset = new Ruleset();
         this.ruleEvaluator = new RuleEvaluator();
         this.ruleParser = new RuleParser();
         this.actionStack = new ActionStack();
-        this.turnOrchestrator = new TurnOrchestrator();
+        this.timelineSeeker = new TimelineSeeker(actionStack);
+        this.turnProfiler = new TurnProfiler();
+        this.turnOrchestrator = new TurnOrchestrator(ruleParser, turnProfiler);
     }
 
     /**
      * Sets the level map to play and resets the action stack.
+     * The initial state and its rules are kept to reset the level later. Large maps switch the rule parser to its parallel mode.
      *
      * @param levelMap the new level map
      */
     public void setLevelMap(LevelMap levelMap) {
         this.levelMap = levelMap;
-        this.levelMapPrototype = new LevelMap(levelMap);
+        this.initialState = levelMap.snapshot();
         actionStack.clear();
+        ruleParser.setParallel(levelMap.getWidth() * levelMap.getHeight() >= PARALLEL_PARSE_MIN_CELLS);
         parseRules();
+        this.initialRules = List.copyOf(ruleset.getRules());
         lastInputTime = System.currentTimeMillis();
     }
 
@@ -105,51 +125,231 @@ public class LevelController {
         }
     }
 
+    /**
+     * Returns the profiler collecting the phase timings of the turns played in this controller.
+     *
+     * @return the turn profiler
+     */
+    public TurnProfiler getTurnProfiler() {
+        return turnProfiler;
+    }
+
+    /**
+     * Returns how many rule parses were skipped while processing the last input,
+     * including the ones skipped inside the turn itself.
+     *
+     * @return the number of avoided parses for the last input
+     */
+    public int getSkippedParseCount() {
+        return skippedParseCount;
+    }
+
     /**
      *  Map each InputCommand to its corresponding function.
+     *  Rules are only parsed again when a text entity was affected by the input.
      * @param inputCommand
      * @param playingState
      */
 
     private void processInput(InputCommand inputCommand, PlayingState playingState) {
-        switch (inputCommand) {
-            case UNDO -> handleUndo();
-            case REDO -> handleRedo();
-            case RESET -> handleReset();
-            case TRIGGER -> processTurn(null, playingState);
-            case MOVE_UP -> processTurn(Direction.UP, playingState);
-            case MOVE_DOWN -> processTurn(Direction.DOWN, playingState);
-            case MOVE_LEFT -> processTurn(Direction.LEFT, playingState);
-            case MOVE_RIGHT -> processTurn(Direction.RIGHT, playingState);
+        skippedParseCount = 0;
+        boolean isLost = switch (inputCommand) {
+            case UNDO -> {
+                restoreRules(handleUndo());
+                yield isCurrentStateLost();
+            }
+            case REDO -> {
+                restoreRules(handleRedo());
+                yield isCurrentStateLost();
+            }
+            case RESET -> {
+                handleReset();
+                skippedParseCount++;
+                yield isCurrentStateLost();
+            }
+            case TRIGGER -> processTurn(null, playingState).isLost();
+            case MOVE_UP -> processTurn(Direction.UP, playingState).isLost();
+            case MOVE_DOWN -> processTurn(Direction.DOWN, playingState).isLost();
+            case MOVE_LEFT -> processTurn(Direction.LEFT, playingState).isLost();
+            case MOVE_RIGHT -> processTurn(Direction.RIGHT, playingState).isLost();
+            case NONE, TIMELINE, DEBUG, MENU -> {
+                skippedParseCount++;
+                yield isCurrentStateLost();
+            }
+        };
+        handleLose(isLost);
+    }
+
+    /**
+     * Checks whether the current state is lost, for inputs that do not play a turn and so have no outcome to read.
+     *
+     * @return {@code true} if no YOU entity is left
+     */
+    private boolean isCurrentStateLost() {
+        return turnOrchestrator.isLost(new LevelState(levelMap, ruleset));
+    }
+
+    /**
+     * Parses the rules again if a text entity changed, otherwise counts the skipped parse.
+     *
+     * @param isTextChanged whether a text entity was affected by the input
+     */
+    private void updateRules(boolean isTextChanged) {
+        if (isTextChanged) {
+            parseRules();
+        } else {
+            skippedParseCount++;
         }
-        parseRules();
-        handleLose();
     }
 
-    /** Parses the current level map and updates the ruleset. */
+    /**
+     * Restores the rules recorded for the current turn of the undo history if a text entity changed,
+     * and only parses the map when they were not recorded.
+     *
+     * @param isTextChanged whether a text entity was affected by moving through the history
+     */
+    private void restoreRules(boolean isTextChanged) {
+        List<Rule> recordedRules = actionStack.getCurrentRules();
+        if (!isTextChanged || recordedRules == null) {
+            updateRules(isTextChanged);
+            return;
+        }
+        RuleChange ruleChange = ruleset.setRules(recordedRules);
+        ruleset.setTextEntities(levelMap.getTextEntities());
+        playRuleChangeSfx(ruleChange);
+        skippedParseCount++;
+    }
+
+    /**
+     * Parses the current level map, updates the ruleset and plays a sound if the rules changed.
+     * The parsed rules are recorded for the current turn of the undo history.
+     */
     private void parseRules() {
         List<Rule> parsedRules = ruleParser.parseRules(levelMap);
-        ruleset.setRules(parsedRules);
+        RuleChange ruleChange = ruleset.setRules(parsedRules);
+        ruleset.setTextEntities(levelMap.getTextEntities());
+        actionStack.setCurrentRules(ruleset);
+        playRuleChangeSfx(ruleChange);
+    }
+
+    /**
+     * Plays a sound to indicate that the rules grew or shrank.
+     *
+     * @param ruleChange the change made to the rules
+     */
+    private void playRuleChangeSfx(RuleChange ruleChange) {
+        switch (ruleChange) {
+            case GROWN -> Audio.playSfx("sound/SFX/confirm.wav");
+            case SHRUNK -> Audio.playSfx("sound/SFX/negative.wav");
+            case UNCHANGED -> { }
+        }
     }
 
-    /** Undoes the last action and plays the undo sound. */
-    private void handleUndo() {
-        actionStack.undo();
+    /**
+     * Undoes the last action and plays the undo sound.
+     *
+     * @return {@code true} if the undone action affected a text entity
+     */
+    private boolean handleUndo() {
+        boolean isTextChanged = actionStack.undo();
 
         Audio.playSfx("sound/SFX/esc.wav");
+        return isTextChanged;
     }
 
-    /** Redoes the last undone action and plays the redo sound. */
-    private void handleRedo() {
-        actionStack.redo();
+    /**
+     * Redoes the last undone action and plays the redo sound.
+     *
+     * @return {@code true} if the redone action affected a text entity
+     */
+    private boolean handleRedo() {
+        boolean isTextChanged = actionStack.redo();
 
         Audio.playSfx("sound/SFX/esc.wav");
+        return isTextChanged;
+    }
+
+    /**
+     * Jumps to the given turn of the undo history, parsing the rules at most once at the end.
+     *
+     * @param turn the number of recorded turns to have applied, between {@code 0} and {@link #getHistorySize()}
+     */
+    public void jumpToTurn(int turn) {
+        skippedParseCount = 0;
+        restoreRules(timelineSeeker.seek(turn));
+        handleLose(isCurrentStateLost());
+    }
+
+    /**
+     * Spends spare frame time preparing the turns around the current one, so that scrubbing on through the undo
+     * history stays cheap. The current turn is left as it is.
+     *
+     * @param budgetNanos the time the preparation may take, in nanoseconds
+     */
+    public void prefetchHistory(long budgetNanos) {
+        timelineSeeker.prefetch(budgetNanos);
+    }
+
+    /**
+     * Jumps to a previously visited state of the undo history, even one on a line of play that was undone,
+     * parsing the rules at most once at the end.
+     *
+     * @param stateHash the hash of the state, as returned by {@link #getStateHash()}
+     * @throws IllegalArgumentException if the state is not in the history
+     */
+    public void jumpToState(long stateHash) {
+        skippedParseCount = 0;
+        restoreRules(actionStack.seekState(stateHash));
+        handleLose(isCurrentStateLost());
+    }
+
+    /**
+     * Returns the hash identifying the current state in the undo history.
+     *
+     * @return the hash of the current state
+     */
+    public long getStateHash() {
+        return actionStack.getStateHash();
+    }
+
+    /**
+     * Returns the number of turns of the undo history currently applied.
+     *
+     * @return the current turn in the history
+     */
+    public int getHistoryTurn() {
+        return actionStack.getCursor();
+    }
+
+    /**
+     * Returns the number of turns recorded in the undo history, including the undone ones.
+     *
+     * @return the size of the history
+     */
+    public int getHistorySize() {
+        return actionStack.size();
+    }
+
+    /**
+     * Returns the estimated heap memory retained by the undo history.
+     *
+     * @return the estimated memory usage in bytes
+     */
+    public long getHistoryMemoryUsage() {
+        return actionStack.getMemoryUsage();
     }
 
-    /** Resets the level to its initial state and plays the reset sound. */
+    /**
+     * Resets the level to its initial state and plays the reset sound.
+     * Only the cells changed since the level was loaded are rebuilt, and the rules parsed at load are restored
+     * since the initial entities come back unchanged.
+     */
     public void handleReset() {
-        levelMap = new LevelMap(levelMapPrototype);
+        levelMap.restore(initialState);
         actionStack.clear();
+        playRuleChangeSfx(ruleset.setRules(initialRules));
+        ruleset.setTextEntities(levelMap.getTextEntities());
+        actionStack.setCurrentRules(ruleset);
 
         Audio.playSfx("sound/SFX/reset.wav");
     }
@@ -159,11 +359,19 @@ public class LevelController {
      *
      * @param direction    the direction of movement, or {@code null} for a stationary turn
      * @param playingState the current playing state (used for particle effects)
+     * @return the outcome of the turn, which tells whether the level is won or lost
      */
-    private void processTurn(Direction direction, PlayingState playingState) {
-        CompositeAction actions = turnOrchestrator.runTurn(direction, levelMap, ruleset, ruleParser);
+    private TurnOutcome processTurn(Direction direction, PlayingState playingState) {
+        TurnOutcome outcome = turnOrchestrator.step(new LevelState(levelMap, ruleset), direction);
+        skippedParseCount += turnOrchestrator.getSkippedParseCount();
+        playRuleChangeSfx(outcome.getRuleChange());
+        if (outcome.isWon()) {
+            GameController.getInstance().setHasPlayerWon(true);
+        }
+
+        CompositeAction actions = outcome.getActions();
         if (actions.getActions().isEmpty()) {
-            return;
+            return outcome;
         }
 
         if (actions.getActions().stream().anyMatch(action -> action instanceof MoveAction)) {
@@ -174,7 +382,23 @@ public class LevelController {
         }
 
         addTurnParticles(actions, playingState);
-        actionStack.newAction(actions);
+        actionStack.newAction(actions, ruleset);
+        return outcome;
+    }
+
+    /**
+     * Plays a sequence of turns without sounds, particles or win handling, for replays, automated tests and hints.
+     * The whole sequence is recorded as a single entry in the undo history.
+     *
+     * @param directions the direction of each turn, where {@code null} is a turn without movement
+     * @return the {@link BatchOutcome} of the sequence, which the caller can use to react to a win or loss
+     */
+    public BatchOutcome playTurns(List<Direction> directions) {
+        BatchOutcome outcome = turnOrchestrator.stepAll(new LevelState(levelMap, ruleset), directions);
+        if (outcome.getActions().size() > 0) {
+            actionStack.newAction(outcome.getActions(), ruleset);
+        }
+        return outcome;
     }
 
     /**
@@ -245,11 +469,12 @@ public class LevelController {
         }
     }
 
-    /** Checks for a lose condition and pauses or resumes music accordingly. */
-    private void handleLose() {
-        boolean updatedIsLose = levelMap.getEntities().stream()
-                .noneMatch(entity -> ruleEvaluator.hasProperty(entity, TypeRegistry.YOU, levelMap, ruleset));
-
+    /**
+     * Pauses or resumes music according to the lose state.
+     *
+     * @param updatedIsLose whether the level is lost after the last input
+     */
+    private void handleLose(boolean updatedIsLose) {
         if (!updatedIsLose) {
             Audio.resumeMusic();
         } else if (!isLose) {
@@ -0,0 +1,90 @@
+package logic.level.turn;
+
+import model.action.CompositeAction;
+
+/**
+ * The result of playing a sequence of turns: the final state, whether each step won or lost the level,
+ * and all actions of the sequence combined into one undo record.
+ */
+public class BatchOutcome {
+    private final LevelState state;
+    private final CompositeAction actions;
+    private final boolean[] wonSteps;
+    private final boolean[] lostSteps;
+
+    /**
+     * Creates the outcome of a sequence of turns.
+     *
+     * @param state     the state after the last turn
+     * @param actions   every action executed during the sequence, in order
+     * @param wonSteps  for each step, whether a win condition was met after it
+     * @param lostSteps for each step, whether no YOU entity was left after it
+     */
+    public BatchOutcome(LevelState state, CompositeAction actions, boolean[] wonSteps, boolean[] lostSteps) {
+        this.state = state;
+        this.actions = actions;
+        this.wonSteps = wonSteps;
+        this.lostSteps = lostSteps;
+    }
+
+    /**
+     * Returns the state after the last turn.
+     *
+     * @return the resulting level state
+     */
+    public LevelState getState() {
+        return state;
+    }
+
+    /**
+     * Returns every action of the sequence, which can be undone as a whole.
+     *
+     * @return the combined undo record
+     */
+    public CompositeAction getActions() {
+        return actions;
+    }
+
+    /**
+     * Returns the number of turns played.
+     *
+     * @return the step count
+     */
+    public int getStepCount() {
+        return wonSteps.length;
+    }
+
+    /**
+     * Returns whether a win condition was met after the given step.
+     *
+     * @param step the zero-based step index
+     * @return {@code true} if the level was won after that step
+     */
+    public boolean isWonAt(int step) {
+        return wonSteps[step];
+    }
+
+    /**
+     * Returns whether the level was lost after the given step.
+     *
+     * @param step the zero-based step index
+     * @return {@code true} if no YOU entity was left after that step
+     */
+    public boolean isLostAt(int step) {
+        return lostSteps[step];
+    }
+
+    /**
+     * Returns the index of the first step after which the level was won.
+     *
+     * @return the first winning step, or {@code -1} if no step won
+     */
+    public int getFirstWonStep() {
+        for (int step = 0; step < wonSteps.length; step++) {
+            if (wonSteps[step]) {
+                return step;
+            }
+        }
+        return -1;
+    }
+}
@@ -16,8 +16,91 @@ import java.util.List;
 
 /**
  * Resolves collisions (PUSH, STOP) for a list of MoveIntents to produce a final CompositeAction.
+ * <p>The ordering buffers are reused between calls, so an instance must not be shared between threads.</p>
  */
 public class CollisionResolver {
+    private final List<List<MoveIntent>> directionQueues;
+    private int[] bucketStarts = new int[0];
+    private int[] intentKeys = new int[0];
+    private MoveIntent[] orderedIntents = new MoveIntent[0];
+
+    public CollisionResolver() {
+        directionQueues = new ArrayList<>();
+        for (int i = 0; i < Direction.values().length; i++) {
+            directionQueues.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * The PUSH entities in a cell and whether the cell is blocked by a STOP entity that is not also PUSH.
+     */
+    private static class CellVerdict {
+        private final List<Entity> pushEntities;
+        private final boolean isBlocked;
+
+        CellVerdict(List<Entity> pushEntities, boolean isBlocked) {
+            this.pushEntities = pushEntities;
+            this.isBlocked = isBlocked;
+        }
+    }
+
+    /**
+     * Holds everything needed while resolving the intents of one direction, including the memoized
+     * cell verdicts. Verdicts are dropped as soon as the cells they depend on change: only the moved-from
+     * and moved-to cells when no rule has conditions, or every verdict otherwise, since a condition may look
+     * at neighbouring cells or at directions.
+     */
+    private static class PassContext {
+        private final CompositeAction action;
+        private final WorkingMap workingMap;
+        private final LevelMap levelMap;
+        private final RuleEvaluator ruleEvaluator;
+        private final Ruleset ruleset;
+        private final boolean hasConditionalRules;
+        private final Map<Point, CellVerdict> cellVerdicts = new HashMap<>();
+
+        PassContext(CompositeAction action, LevelMap levelMap, RuleEvaluator ruleEvaluator, Ruleset ruleset, boolean hasConditionalRules) {
+            this.action = action;
+            this.workingMap = new WorkingMap(levelMap);
+            this.levelMap = levelMap;
+            this.ruleEvaluator = ruleEvaluator;
+            this.ruleset = ruleset;
+            this.hasConditionalRules = hasConditionalRules;
+        }
+
+        CellVerdict getVerdict(Point cell) {
+            CellVerdict verdict = cellVerdicts.get(cell);
+            if (verdict == null) {
+                verdict = computeVerdict(cell);
+                cellVerdicts.put(cell, verdict);
+            }
+            return verdict;
+        }
+
+        private CellVerdict computeVerdict(Point cell) {
+            List<Entity> pushEntities = new ArrayList<>();
+            boolean isBlocked = false;
+            for (Entity entity : workingMap.getEntitiesAt(cell)) {
+                boolean isPush = ruleEvaluator.hasProperty(entity, TypeRegistry.PUSH, workingMap, ruleset);
+                if (isPush) {
+                    pushEntities.add(entity);
+                } else if (ruleEvaluator.hasProperty(entity, TypeRegistry.STOP, workingMap, ruleset)) {
+                    isBlocked = true;
+                }
+            }
+            return new CellVerdict(pushEntities, isBlocked);
+        }
+
+        void moveEntity(Entity entity, Point from, int toX, int toY) {
+            workingMap.setPosition(entity, toX, toY);
+            if (hasConditionalRules) {
+                cellVerdicts.clear();
+            } else {
+                cellVerdicts.remove(from);
+                cellVerdicts.remove(new Point(toX, toY));
+            }
+        }
+    }
 
     /**
      * Resolves all movement intents against PUSH and STOP rules and returns the resulting actions.
@@ -30,72 +113,108 @@ public class CollisionResolver {
      */
     public CompositeAction resolveCollisions(List<MoveIntent> intents, LevelMap levelMap, Ruleset ruleset, RuleEvaluator ruleEvaluator) {
         CompositeAction action = new CompositeAction();
+        boolean hasConditionalRules = ruleset.getRules().stream()
+                .anyMatch(rule -> !rule.getConditions().isEmpty());
+
+        for (List<MoveIntent> queue : directionQueues) {
+            queue.clear();
+        }
+        for (MoveIntent intent : intents) {
+            // Intents without a direction come from a turn without movement
+            if (intent.getDirection() != null) {
+                directionQueues.get(intent.getDirection().ordinal()).add(intent);
+            }
+        }
 
         for (Direction direction : Direction.values()) {
-            List<MoveIntent> intentsInDirection = getIntentsInDirection(intents, direction, levelMap);
-            LevelMap workingMap = new LevelMap(levelMap);
+            List<MoveIntent> queue = directionQueues.get(direction.ordinal());
+            if (queue.isEmpty()) {
+                continue;
+            }
+            int intentCount = orderIntents(queue, direction, levelMap);
+            queue.clear();
+            PassContext context = new PassContext(action, levelMap, ruleEvaluator, ruleset, hasConditionalRules);
 
-            for (MoveIntent intent : intentsInDirection) {
-                processIntent(intent, action, workingMap, levelMap, ruleEvaluator, ruleset);
+            for (int i = 0; i < intentCount; i++) {
+                processIntent(orderedIntents[i], context);
             }
+            Arrays.fill(orderedIntents, 0, intentCount, null);
         }
 
         return action;
     }
 
     /**
-     * Returns intents moving in the specified direction, sorted so entities are processed in the correct order.
+     * Sorts the intents of one direction into {@link #orderedIntents} so entities at the front are processed first.
+     * <p>This is a stable counting sort on the row or column of each entity, so it runs in linear time and
+     * only allocates when the buffers need to grow.</p>
      *
-     * @param intents   all move intents
-     * @param direction the direction to filter by
+     * @param queue     the intents moving in the given direction, in their original order
+     * @param direction the direction of the intents
      * @param levelMap  used to read entity positions
-     * @return sorted list of intents in the given direction
+     * @return the number of intents written to {@link #orderedIntents}
      */
-    private List<MoveIntent> getIntentsInDirection(List<MoveIntent> intents, Direction direction, LevelMap levelMap) {
-        return intents.stream()
-                .filter(intent -> intent.getDirection() == direction)
-                .sorted(Comparator.comparingInt(intent -> {
-                    Entity entity = intent.getEntity();
-                    return switch (direction) {
-                        case UP -> levelMap.getY(entity);
-                        case DOWN -> -levelMap.getY(entity);
-                        case LEFT -> levelMap.getX(entity);
-                        case RIGHT -> -levelMap.getX(entity);
-                    };
-                }))
-                .toList();
+    private int orderIntents(List<MoveIntent> queue, Direction direction, LevelMap levelMap) {
+        int intentCount = queue.size();
+        boolean isHorizontal = direction == Direction.LEFT || direction == Direction.RIGHT;
+        int bucketCount = isHorizontal ? levelMap.getWidth() : levelMap.getHeight();
+        if (bucketStarts.length < bucketCount + 1) {
+            bucketStarts = new int[bucketCount + 1];
+        }
+        if (intentKeys.length < intentCount) {
+            intentKeys = new int[intentCount];
+            orderedIntents = new MoveIntent[intentCount];
+        }
+        Arrays.fill(bucketStarts, 0, bucketCount + 1, 0);
+
+        for (int i = 0; i < intentCount; i++) {
+            Entity entity = queue.get(i).getEntity();
+            int key = switch (direction) {
+                case UP -> levelMap.getY(entity);
+                case DOWN -> bucketCount - 1 - levelMap.getY(entity);
+                case LEFT -> levelMap.getX(entity);
+                case RIGHT -> bucketCount - 1 - levelMap.getX(entity);
+            };
+            intentKeys[i] = key;
+            bucketStarts[key + 1]++;
+        }
+        for (int key = 0; key < bucketCount; key++) {
+            bucketStarts[key + 1] += bucketStarts[key];
+        }
+        for (int i = 0; i < intentCount; i++) {
+            orderedIntents[bucketStarts[intentKeys[i]]++] = queue.get(i);
+        }
+        return intentCount;
     }
 
     /**
      *  Process a single move intent
      *
-     * @param intent        the intent to process
-     * @param action        the composite action to append to
-     * @param workingMap    the map to track entity positions during processing
-     * @param levelMap      the real level map
-     * @param ruleEvaluator used to query entity properties
-     * @param ruleset       the active ruleset
+     * @param intent  the intent to process
+     * @param context the state of the current direction pass
      */
-    private void processIntent(MoveIntent intent, CompositeAction action, LevelMap workingMap, LevelMap levelMap, RuleEvaluator ruleEvaluator, Ruleset ruleset) {
+    private void processIntent(MoveIntent intent, PassContext context) {
+        WorkingMap workingMap = context.workingMap;
         Entity entity = intent.getEntity();
         Direction direction = intent.getDirection();
         if(intent.isFromMove()) {
             direction = workingMap.getEntityById(entity.getEntityId()).getDirection();
         }
 
-        int targetX = workingMap.getX(entity) + direction.dx;
-        int targetY = workingMap.getY(entity) + direction.dy;
+        Point position = workingMap.getPosition(entity);
+        int targetX = position.x + direction.dx;
+        int targetY = position.y + direction.dy;
 
         if (!workingMap.isInside(targetX, targetY)) {
-            handleStop(intent, action, workingMap, levelMap, ruleEvaluator, ruleset);
+            handleStop(intent, context);
             return;
         }
 
-        if (tryPush(intent, action, workingMap, levelMap, ruleEvaluator, ruleset)) {
-            action.add(new MoveAction(levelMap, entity, workingMap.getPosition(entity), direction));
-            workingMap.setPosition(entity, targetX, targetY);
+        if (tryPush(intent, context)) {
+            context.action.add(new MoveAction(context.levelMap, entity, position, direction));
+            context.moveEntity(entity, position, targetX, targetY);
         } else {
-            handleStop(intent, action, workingMap, levelMap, ruleEvaluator, ruleset);
+            handleStop(intent, context);
         }
     }
 
@@ -103,47 +222,45 @@ public class CollisionResolver {
      * Handles the case where an entity is stopped: rotates autonomous MOVE entities and
      * attempts a bounce in the opposite direction.
      *
-     * @param intent        the intent that was stopped
-     * @param action        the composite action to append to
-     * @param workingMap    the simulation map
-     * @param levelMap      the real level map
-     * @param ruleEvaluator used to query entity properties
-     * @param ruleset       the active ruleset
+     * @param intent  the intent that was stopped
+     * @param context the state of the current direction pass
      */
-    private void handleStop(MoveIntent intent, CompositeAction action, LevelMap workingMap, LevelMap levelMap, RuleEvaluator ruleEvaluator, Ruleset ruleset) {
+    private void handleStop(MoveIntent intent, PassContext context) {
+        WorkingMap workingMap = context.workingMap;
         Entity entity = intent.getEntity();
         Direction direction = intent.getDirection();
         if (intent.isFromMove()) {
             Entity workingEntity = workingMap.getEntityById(entity.getEntityId());
             direction = workingEntity.getDirection();
-            action.add(new RotateAction(entity, direction.getOpposite()));
+            context.action.add(new RotateAction(entity, direction.getOpposite()));
 
             MoveIntent bounceIntent = new MoveIntent(entity, direction.getOpposite(), false);
-            if (tryPush(bounceIntent, action, workingMap, levelMap, ruleEvaluator, ruleset)) {
-                action.add(new MoveAction(levelMap, entity, workingMap.getPosition(entity), direction.getOpposite()));
-                int targetX = workingMap.getX(entity) + direction.getOpposite().dx;
-                int targetY = workingMap.getY(entity) + direction.getOpposite().dy;
-                workingMap.setPosition(workingEntity, targetX, targetY);
+            if (tryPush(bounceIntent, context)) {
+                Point position = workingMap.getPosition(entity);
+                context.action.add(new MoveAction(context.levelMap, entity, position, direction.getOpposite()));
+                int targetX = position.x + direction.getOpposite().dx;
+                int targetY = position.y + direction.getOpposite().dy;
                 workingEntity.setDirection(direction.getOpposite());
+                context.moveEntity(workingEntity, position, targetX, targetY);
             }
         }
         else if(direction != entity.getDirection()) {
-            action.add(new RotateAction(entity, direction));
+            context.action.add(new RotateAction(entity, direction));
         }
     }
 
     /**
-     * Recursively attempts to push the entities blocking the path of the given intent.
+     * Attempts to push the entities blocking the path of the given intent.
+     * <p>The push line is walked once, cell by cell, until a free cell (success) or a blocked cell
+     * or the map border (failure) is reached. On success, the pushed entities are moved starting
+     * from the far end of the line, so the resulting actions are in the same order as a recursive push.</p>
      *
-     * @param intent        the intent requesting a push
-     * @param action        the composite action to append push moves to
-     * @param workingMap    the simulation map
-     * @param levelMap      the real level map
-     * @param ruleEvaluator used to query entity properties
-     * @param ruleset       the active ruleset
+     * @param intent  the intent requesting a push
+     * @param context the state of the current direction pass
      * @return {@code true} if the push succeeded (path is clear), {@code false} if blocked
      */
-    private boolean tryPush(MoveIntent intent, CompositeAction action, LevelMap workingMap, LevelMap levelMap, RuleEvaluator ruleEvaluator, Ruleset ruleset) {
+    private boolean tryPush(MoveIntent intent, PassContext context) {
+        WorkingMap workingMap = context.workingMap;
         Entity entity = intent.getEntity();
         Direction direction = intent.getDirection();
 
@@ -151,38 +268,38 @@ public class CollisionResolver {
             direction = workingMap.getEntityById(entity.getEntityId()).getDirection();
         }
 
-        int targetX = workingMap.getX(entity) + direction.dx;
-        int targetY = workingMap.getY(entity) + direction.dy;
-        Point target = new Point(targetX, targetY);
-
-        if (!levelMap.isInside(targetX, targetY)) {
-            return false;
-        }
-
-        List<Entity> pushEntities = ruleEvaluator.getEntitiesWithPropertyAt(TypeRegistry.PUSH, workingMap, ruleset, target);
-        List<Entity> stopEntities = ruleEvaluator.getEntitiesWithPropertyAt(TypeRegistry.STOP, workingMap, ruleset, target);
+        Point target = workingMap.getPosition(entity);
+        target.translate(direction.dx, direction.dy);
 
-        // If there's any STOP entity that's not also PUSH, we cannot push
-        boolean isBlocked = stopEntities.stream().anyMatch(stop -> !pushEntities.contains(stop));
-        if (isBlocked) {
-            return false;
-        }
+        List<Point> chainCells = new ArrayList<>();
+        List<CellVerdict> chainVerdicts = new ArrayList<>();
+        while (true) {
+            if (!context.levelMap.isInside(target.x, target.y)) {
+                return false;
+            }
 
-        // If there are no PUSH entities, the push succeeds.
-        if (pushEntities.isEmpty()) {
-            return true;
-        }
+            CellVerdict verdict = context.getVerdict(target);
+            // If there's any STOP entity that's not also PUSH, we cannot push
+            if (verdict.isBlocked) {
+                return false;
+            }
+            // If there are no PUSH entities, the push succeeds.
+            if (verdict.pushEntities.isEmpty()) {
+                break;
+            }
 
-        // Check the next step in the push direction with one of the push entities
-        MoveIntent pushIntent = new MoveIntent(pushEntities.getFirst(), direction, false);
-        if (!tryPush(pushIntent, action, workingMap, levelMap, ruleEvaluator, ruleset)) {
-            return false;
+            chainCells.add(target);
+            chainVerdicts.add(verdict);
+            target = new Point(target.x + direction.dx, target.y + direction.dy);
         }
 
-        for (Entity pushEntity : pushEntities) {
-            Entity trueEntity = levelMap.getEntityById(pushEntity.getEntityId());
-            action.add(new MoveAction(levelMap, trueEntity, workingMap.getPosition(pushEntity), direction));
-            workingMap.setPosition(pushEntity, targetX + direction.dx, targetY + direction.dy);
+        for (int i = chainCells.size() - 1; i >= 0; i--) {
+            Point cell = chainCells.get(i);
+            for (Entity pushEntity : List.copyOf(chainVerdicts.get(i).pushEntities)) {
+                Entity trueEntity = workingMap.getOriginal(pushEntity);
+                context.action.add(new MoveAction(context.levelMap, trueEntity, workingMap.getPosition(pushEntity), direction));
+                context.moveEntity(pushEntity, cell, cell.x + direction.dx, cell.y + direction.dy);
+            }
         }
 
         return true;
@@ -6,19 +6,59 @@ import model.entity.Direction;
 import model.entity.Entity;
 import model.entity.EntityType;
 import model.entity.TypeRegistry;
+import model.entity.word.PropertyType;
 import model.map.LevelMap;
+import model.rule.Rule;
 import model.rule.Ruleset;
-import model.rule.Transformation;
 
 import java.awt.*;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * Handles interactions between entities on the level map after movement based on the current rule.
+ * <p>The properties that some rule of the ruleset grants are queried once per entity and merged per occupied cell.
+ * A single pass over the occupied cells then plans the transformations, SINK, YOU/DEFEAT and HOT/MELT, while MORE only
+ * examines the boundary cells kept by a {@link MoreFrontier}. Interactions are emitted in the order transformation,
+ * MORE, SINK, YOU/DEFEAT, HOT/MELT and HAS.</p>
  */
 public class InteractionHandler {
+    private static final PropertyType[] CELL_PROPERTIES = {
+            TypeRegistry.YOU, TypeRegistry.DEFEAT, TypeRegistry.SINK, TypeRegistry.HOT, TypeRegistry.MELT
+    };
+    private static final int YOU_FLAG = 1;
+    private static final int DEFEAT_FLAG = 1 << 1;
+    private static final int SINK_FLAG = 1 << 2;
+    private static final int HOT_FLAG = 1 << 3;
+    private static final int MELT_FLAG = 1 << 4;
+
+    private final MoreFrontier moreFrontier = new MoreFrontier();
+    private int checkedMoreCellCount;
+
+    /**
+     * The entities of one occupied cell with the interaction properties of each entity and their union.
+     */
+    private static class CellState {
+        private final List<Entity> entities;
+        private final int[] entityFlags;
+        private final int flagUnion;
+
+        CellState(List<Entity> entities, int[] entityFlags, int flagUnion) {
+            this.entities = entities;
+            this.entityFlags = entityFlags;
+            this.flagUnion = flagUnion;
+        }
+
+        boolean hasAny(int flags) {
+            return (flagUnion & flags) != 0;
+        }
+    }
 
     /**
      * Runs all interaction passes (transformation, MORE, SINK, DEFEAT, HOT/MELT, HAS)
@@ -30,121 +70,241 @@ public class InteractionHandler {
      * @return a {@link CompositeAction} containing all interaction actions
      */
     public CompositeAction handleInteractions(LevelMap levelMap, Ruleset ruleset, RuleEvaluator ruleEvaluator) {
+        boolean hasTransformationRules = ruleset.getRules().stream()
+                .anyMatch(rule -> rule.getVerb() == TypeRegistry.IS && !(rule.getEffect() instanceof PropertyType));
+        int ruleFlags = getRuleFlags(ruleset);
+
+        CompositeAction transformActions = new CompositeAction();
+        CompositeAction moreActions = new CompositeAction();
+        CompositeAction sinkActions = new CompositeAction();
+        CompositeAction defeatActions = new CompositeAction();
+        CompositeAction meltActions = new CompositeAction();
+
+        if (hasTransformationRules || ruleFlags != 0) {
+            for (CellState cell : getCellStates(levelMap, ruleset, ruleEvaluator, ruleFlags)) {
+                if (hasTransformationRules) {
+                    processTransformation(cell, levelMap, ruleset, ruleEvaluator, transformActions);
+                }
+                processSink(cell, levelMap, sinkActions);
+                processYouDefeat(cell, levelMap, defeatActions);
+                processHotMelt(cell, levelMap, meltActions);
+            }
+        }
+        processMore(levelMap, ruleset, ruleEvaluator, moreActions);
+
         CompositeAction action = new CompositeAction();
-        processTransformation(levelMap, ruleset, ruleEvaluator, action);
-        processMore(levelMap, ruleset, ruleEvaluator, action);
-        processSink(levelMap, ruleset, ruleEvaluator, action);
-        processYouDefeat(levelMap, ruleset, ruleEvaluator, action);
-        processHotMelt(levelMap, ruleset, ruleEvaluator, action);
+        action.combine(transformActions);
+        action.combine(moreActions);
+        action.combine(sinkActions);
+        action.combine(defeatActions);
+        action.combine(meltActions);
         processHas(levelMap, ruleset, ruleEvaluator, action);
         return action;
     }
 
-    /** Applies all "X IS Y" transformation rules (where Y is not a property). */
-    private void processTransformation(LevelMap levelMap, Ruleset ruleset, RuleEvaluator ruleEvaluator, CompositeAction action) {
-        ruleEvaluator.getTransformations(levelMap, ruleset).forEach(transformation -> {
-            Entity source = transformation.getSource();
-            EntityType targetType = transformation.getTargetType();
-            action.add(new TransformAction(levelMap, source, targetType));
-        });
+    /**
+     * Returns the number of cells the latest MORE pass examined, which only counts the boundary of each MORE blob.
+     *
+     * @return the examined cell count
+     */
+    int getCheckedMoreCellCount() {
+        return checkedMoreCellCount;
     }
 
-    /** Creates copies of entities with the MORE property in each adjacent free cell. */
-    private void processMore(LevelMap levelMap, Ruleset ruleset, RuleEvaluator ruleEvaluator, CompositeAction action) {
-        List<Entity> entities = ruleEvaluator.getEntitiesWithProperty(TypeRegistry.MORE, levelMap, ruleset);
-        Set<Point> occupiedPositions = new HashSet<>();
-        for (Entity entity : entities) {
-            Point position = levelMap.getPosition(entity);
-            for(Direction direction : Direction.values()) {
-                int adjacentX = position.x + direction.dx;
-                int adjacentY = position.y + direction.dy;
-                Point adjacent = new Point(adjacentX, adjacentY);
-
-                if(occupiedPositions.contains(adjacent)) {
-                    continue;
-                }
-                if(!levelMap.isInside(adjacentX, adjacentY)) {
-                    continue;
-                }
-                if(ruleEvaluator.hasEntityWithPropertyAt(TypeRegistry.PUSH, levelMap, ruleset, adjacent)) {
-                    continue;
-                }
-                if(ruleEvaluator.hasEntityWithPropertyAt(TypeRegistry.STOP, levelMap, ruleset, adjacent)) {
-                    continue;
-                }
-                if(levelMap.getEntitiesAt(adjacent).stream().anyMatch(e -> e.getType() == entity.getType())) {
-                    continue;
+    /**
+     * Returns the flags of the cell properties that can lead to an interaction under the ruleset: SINK if a rule grants
+     * it, and YOU and DEFEAT, or HOT and MELT, only if rules grant both of them.
+     *
+     * @param ruleset the active ruleset
+     * @return the flags of the properties to query
+     */
+    private int getRuleFlags(Ruleset ruleset) {
+        int flags = 0;
+        for (int bit = 0; bit < CELL_PROPERTIES.length; bit++) {
+            if (!ruleset.getRulesWithEffect(CELL_PROPERTIES[bit]).isEmpty()) {
+                flags |= 1 << bit;
+            }
+        }
+        for (int pair : new int[]{YOU_FLAG | DEFEAT_FLAG, HOT_FLAG | MELT_FLAG}) {
+            if ((flags & pair) != pair) {
+                flags &= ~pair;
+            }
+        }
+        return flags;
+    }
+
+    /**
+     * Queries the given interaction properties of every entity once and groups them by occupied cell.
+     *
+     * @param levelMap      the current level map
+     * @param ruleset       the active ruleset
+     * @param ruleEvaluator the rule evaluator used for property queries
+     * @param ruleFlags     the flags of the properties to query
+     * @return the state of every occupied cell
+     */
+    private List<CellState> getCellStates(LevelMap levelMap, Ruleset ruleset, RuleEvaluator ruleEvaluator, int ruleFlags) {
+        List<CellState> cellStates = new ArrayList<>();
+        for (Point position : levelMap.getOccupiedPositions()) {
+            List<Entity> entities = List.copyOf(levelMap.getEntitiesAt(position));
+            int[] entityFlags = new int[entities.size()];
+            int flagUnion = 0;
+            for (int i = 0; i < entities.size(); i++) {
+                for (int bit = 0; bit < CELL_PROPERTIES.length; bit++) {
+                    if ((ruleFlags & 1 << bit) != 0
+                            && ruleEvaluator.hasProperty(entities.get(i), CELL_PROPERTIES[bit], levelMap, ruleset)) {
+                        entityFlags[i] |= 1 << bit;
+                    }
                 }
-                CreateAction createAction = new CreateAction(levelMap, entity.getType(), adjacentX, adjacentY);
-                action.add(createAction);
-                occupiedPositions.add(adjacent);
+                flagUnion |= entityFlags[i];
             }
+            cellStates.add(new CellState(entities, entityFlags, flagUnion));
         }
+        return cellStates;
     }
 
-    /** Destroys YOU entities that occupy the same cell as a DEFEAT entity. */
-    private void processYouDefeat(LevelMap levelMap, Ruleset ruleset, RuleEvaluator ruleEvaluator, CompositeAction action) {
-        List<Entity> youEntities = ruleEvaluator.getEntitiesWithProperty(TypeRegistry.YOU, levelMap, ruleset);
-        for (Entity youEntity : youEntities) {
-            Point position = levelMap.getPosition(youEntity);
-            if (ruleEvaluator.hasEntityWithPropertyAt(TypeRegistry.DEFEAT, levelMap, ruleset, position)) {
-                action.add(new DestroyAction(levelMap, youEntity));
+    /** Applies all "X IS Y" transformation rules (where Y is not a property) to the entities of the cell. */
+    private void processTransformation(CellState cell, LevelMap levelMap, Ruleset ruleset, RuleEvaluator ruleEvaluator, CompositeAction action) {
+        for (Entity entity : cell.entities) {
+            for (EntityType targetType : ruleEvaluator.getTransformationTargets(entity, levelMap, ruleset)) {
+                action.add(new TransformAction(levelMap, entity, targetType));
             }
         }
     }
 
-    /** Destroys MELT entities that occupy the same cell as a HOT entity. */
-    private void processHotMelt(LevelMap levelMap, Ruleset ruleset, RuleEvaluator ruleEvaluator, CompositeAction action) {
-        List<Entity> meltEntities = ruleEvaluator.getEntitiesWithProperty(TypeRegistry.MELT, levelMap, ruleset);
-        for (Entity meltEntity : meltEntities) {
-            Point position = levelMap.getPosition(meltEntity);
-            if (ruleEvaluator.hasEntityWithPropertyAt(TypeRegistry.HOT, levelMap, ruleset, position)) {
-                action.add(new DestroyAction(levelMap, meltEntity));
+    /**
+     * Creates copies of MORE entities in each adjacent free cell.
+     * <p>Only the boundary cells kept by the {@link MoreFrontier} are examined. A cell whose neighbours are all blocked
+     * leaves the boundary of its type until the map changes on or next to it.</p>
+     */
+    private void processMore(LevelMap levelMap, Ruleset ruleset, RuleEvaluator ruleEvaluator, CompositeAction action) {
+        Set<EntityType> moreTypes = new LinkedHashSet<>();
+        for (Rule rule : ruleset.getRulesWithEffect(TypeRegistry.MORE)) {
+            if (rule.getVerb() == TypeRegistry.IS) {
+                moreTypes.addAll(ruleEvaluator.getSubtypes(rule.getSubject(), ruleset));
+            }
+        }
+        moreFrontier.begin(levelMap, ruleset, moreTypes);
+        checkedMoreCellCount = 0;
+
+        Set<Point> grownPositions = new HashSet<>();
+        for (Map.Entry<EntityType, Set<Point>> boundary : moreFrontier.getBoundaries().entrySet()) {
+            EntityType type = boundary.getKey();
+            Iterator<Point> iterator = boundary.getValue().iterator();
+            while (iterator.hasNext()) {
+                Point position = iterator.next();
+                checkedMoreCellCount++;
+                boolean isMore = levelMap.getEntitiesAt(position).stream().anyMatch(entity -> entity.getType() == type
+                        && ruleEvaluator.hasProperty(entity, TypeRegistry.MORE, levelMap, ruleset));
+                if (!isMore || !grow(position, type, grownPositions, levelMap, ruleset, ruleEvaluator, action)) {
+                    iterator.remove();
+                }
             }
         }
     }
 
-    /** Destroys all entities (including the SINK entity itself) that share a cell with a SINK entity. */
-    private void processSink(LevelMap levelMap, Ruleset ruleset, RuleEvaluator ruleEvaluator, CompositeAction action) {
-        List<Entity> sinkEntities = ruleEvaluator.getEntitiesWithProperty(TypeRegistry.SINK, levelMap, ruleset);
-        Set<Point> processedPositions = new HashSet<>();
+    /**
+     * Creates a copy of the given type in each free neighbour of the cell.
+     *
+     * @return {@code false} if every neighbour is blocked
+     */
+    private boolean grow(Point position, EntityType type, Set<Point> grownPositions, LevelMap levelMap, Ruleset ruleset,
+                         RuleEvaluator ruleEvaluator, CompositeAction action) {
+        boolean isBlocked = true;
+        for (Direction direction : Direction.values()) {
+            int adjacentX = position.x + direction.dx;
+            int adjacentY = position.y + direction.dy;
+            Point adjacent = new Point(adjacentX, adjacentY);
 
-        for (Entity sinkEntity : sinkEntities) {
-            Point position = levelMap.getPosition(sinkEntity);
-            if (processedPositions.contains(position)) {
+            if (grownPositions.contains(adjacent)) {
+                isBlocked = false;
                 continue;
             }
+            if (!levelMap.isInside(adjacentX, adjacentY)) {
+                continue;
+            }
+            boolean isOccupied = levelMap.getEntitiesAt(adjacent).stream().anyMatch(entity -> entity.getType() == type
+                    || ruleEvaluator.hasProperty(entity, TypeRegistry.PUSH, levelMap, ruleset)
+                    || ruleEvaluator.hasProperty(entity, TypeRegistry.STOP, levelMap, ruleset));
+            if (isOccupied) {
+                continue;
+            }
+            action.add(new CreateAction(levelMap, type, adjacentX, adjacentY));
+            grownPositions.add(adjacent);
+            isBlocked = false;
+        }
+        return !isBlocked;
+    }
 
-            List<Entity> entitiesAtPosition = levelMap.getEntitiesAt(position);
-            if (entitiesAtPosition.size() > 1) {
-                for (Entity entity : entitiesAtPosition) {
-                    action.add(new DestroyAction(levelMap, entity));
-                }
-                processedPositions.add(position);
+    /** Destroys all entities (including the SINK entity itself) of a cell holding a SINK entity and something else. */
+    private void processSink(CellState cell, LevelMap levelMap, CompositeAction action) {
+        if (!cell.hasAny(SINK_FLAG) || cell.entities.size() <= 1) {
+            return;
+        }
+        for (Entity entity : cell.entities) {
+            action.add(new DestroyAction(levelMap, entity));
+        }
+    }
+
+    /** Destroys YOU entities that occupy the same cell as a DEFEAT entity. */
+    private void processYouDefeat(CellState cell, LevelMap levelMap, CompositeAction action) {
+        destroyFlaggedIf(cell, DEFEAT_FLAG, YOU_FLAG, levelMap, action);
+    }
+
+    /** Destroys MELT entities that occupy the same cell as a HOT entity. */
+    private void processHotMelt(CellState cell, LevelMap levelMap, CompositeAction action) {
+        destroyFlaggedIf(cell, HOT_FLAG, MELT_FLAG, levelMap, action);
+    }
+
+    /**
+     * Destroys the entities of the cell having the victim flag if any entity of the cell has the trigger flag.
+     *
+     * @param cell        the cell to check
+     * @param triggerFlag the property that destroys others, such as DEFEAT or HOT
+     * @param victimFlag  the property of the destroyed entities, such as YOU or MELT
+     * @param levelMap    the current level map
+     * @param action      the composite action to add the destroy actions to
+     */
+    private void destroyFlaggedIf(CellState cell, int triggerFlag, int victimFlag, LevelMap levelMap, CompositeAction action) {
+        if (!cell.hasAny(triggerFlag) || !cell.hasAny(victimFlag)) {
+            return;
+        }
+        for (int i = 0; i < cell.entities.size(); i++) {
+            if ((cell.entityFlags[i] & victimFlag) != 0) {
+                action.add(new DestroyAction(levelMap, cell.entities.get(i)));
             }
         }
     }
 
     /**
      * Applies "X HAS Y" rules: when an entity matching X is destroyed, a new entity of type Y
-     * is created at the same position.
+     * is created at the same position. Only the destroyed entities are evaluated, and an entity
+     * destroyed several times this turn drops once per destruction.
      */
     private void processHas(LevelMap levelMap, Ruleset ruleset, RuleEvaluator ruleEvaluator, CompositeAction action) {
-        List<Action> destroyActions = action.getActions().stream()
-                .filter(a -> a instanceof DestroyAction)
-                .toList();
-        List<Transformation> hasTransformations = ruleEvaluator.getHasTransformations(levelMap, ruleset);
-        for (Transformation transformation : hasTransformations) {
-            Entity source = transformation.getSource();
-            EntityType targetType = transformation.getTargetType();
-            destroyActions.stream()
-                    .filter(a -> a instanceof DestroyAction)
-                    .map(a -> (DestroyAction) a)
-                    .filter(a -> a.getEntity() == source)
-                    .forEach(a -> {
-                        Point position = levelMap.getPosition(a.getEntity());
-                        action.add(new CreateAction(levelMap, targetType, source.getDirection(), position.x, position.y));
-                    });
+        boolean hasHasRules = ruleset.getRules().stream().anyMatch(rule -> rule.getVerb() == TypeRegistry.HAS);
+        if (!hasHasRules) {
+            return;
+        }
+
+        Map<Entity, Integer> destroyCounts = new LinkedHashMap<>();
+        for (Action plannedAction : action.getActions()) {
+            if (plannedAction instanceof DestroyAction destroyAction) {
+                destroyCounts.merge(destroyAction.getEntity(), 1, Integer::sum);
+            }
+        }
+
+        for (Map.Entry<Entity, Integer> destroyed : destroyCounts.entrySet()) {
+            Entity source = destroyed.getKey();
+            List<EntityType> targetTypes = ruleEvaluator.getHasTargets(source, levelMap, ruleset);
+            if (targetTypes.isEmpty()) {
+                continue;
+            }
+            Point position = levelMap.getPosition(source);
+            for (EntityType targetType : targetTypes) {
+                for (int i = 0; i < destroyed.getValue(); i++) {
+                    action.add(new CreateAction(levelMap, targetType, source.getDirection(), position.x, position.y));
+                }
+            }
         }
     }
 }
@@ -0,0 +1,54 @@
+package logic.level.turn;
+
+import model.map.LevelMap;
+import model.rule.Ruleset;
+
+/**
+ * The complete game state a turn is played on: the level map and the rules parsed from it.
+ */
+public class LevelState {
+    private final LevelMap levelMap;
+    private final Ruleset ruleset;
+
+    /**
+     * Creates a state from a level map and the ruleset parsed from it.
+     *
+     * @param levelMap the level map
+     * @param ruleset  the active ruleset of the map
+     */
+    public LevelState(LevelMap levelMap, Ruleset ruleset) {
+        this.levelMap = levelMap;
+        this.ruleset = ruleset;
+    }
+
+    /**
+     * Returns an independent copy of this state, so turns can be explored without changing the original.
+     *
+     * @return a deep copy of the level map together with a ruleset holding the same rules
+     */
+    public LevelState copy() {
+        LevelMap mapCopy = new LevelMap(levelMap);
+        Ruleset rulesetCopy = new Ruleset();
+        rulesetCopy.setRules(ruleset.getRules());
+        rulesetCopy.setTextEntities(mapCopy.getTextEntities());
+        return new LevelState(mapCopy, rulesetCopy);
+    }
+
+    /**
+     * Returns the level map of this state.
+     *
+     * @return the level map
+     */
+    public LevelMap getLevelMap() {
+        return levelMap;
+    }
+
+    /**
+     * Returns the ruleset of this state.
+     *
+     * @return the active ruleset
+     */
+    public Ruleset getRuleset() {
+        return ruleset;
+    }
+}
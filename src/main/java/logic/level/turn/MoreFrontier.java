@@ -0,0 +1,104 @@
+package logic.level.turn;
+
+import model.entity.Direction;
+import model.entity.Entity;
+import model.entity.EntityType;
+import model.map.LevelMap;
+import model.rule.Ruleset;
+
+import java.awt.*;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the boundary of every MORE type: the cells holding an entity of that type which may still have a free
+ * neighbour, so the MORE pass only examines the edge of each blob.
+ * <p>The MORE pass removes a cell from the boundary once all its neighbours are blocked. Before each pass, every cell
+ * changed on the map since the previous one, such as by the turn's actions or an undo, puts itself and its neighbours
+ * back on the boundary of the types they hold. The boundaries are rebuilt from the map's type index when another map
+ * is played, the rules change, or the map no longer remembers every change since the previous pass. When a rule has
+ * conditions, nothing is kept between passes, since a condition can make a neighbour's PUSH or STOP depend on cells
+ * further away.</p>
+ */
+class MoreFrontier {
+    private final Map<EntityType, Set<Point>> boundaries;
+    private LevelMap levelMap;
+    private Ruleset ruleset;
+    private int rulesetVersion;
+    private long changeCount;
+
+    MoreFrontier() {
+        this.boundaries = new LinkedHashMap<>();
+    }
+
+    /**
+     * Brings the boundaries up to date with the changes made to the map since the previous pass.
+     *
+     * @param levelMap  the map the pass runs on
+     * @param ruleset   the active ruleset
+     * @param moreTypes the types that may be MORE under the active rules
+     */
+    void begin(LevelMap levelMap, Ruleset ruleset, Set<EntityType> moreTypes) {
+        boolean isCaching = ruleset.getRules().stream().allMatch(rule -> rule.getConditions().isEmpty());
+        boolean isCurrent = isCaching && levelMap == this.levelMap && ruleset == this.ruleset
+                && ruleset.getVersion() == rulesetVersion && levelMap.forEachCellChangedSince(changeCount, this::touchCell);
+        if (!isCurrent) {
+            rebuild(levelMap, moreTypes);
+            this.levelMap = levelMap;
+            this.ruleset = ruleset;
+            this.rulesetVersion = ruleset.getVersion();
+        }
+        changeCount = levelMap.getChangeCount();
+    }
+
+    /**
+     * Returns the boundary cells of every MORE type. Cells found blocked are removed through the sets' iterators.
+     *
+     * @return the boundary of each type, keyed by type
+     */
+    Map<EntityType, Set<Point>> getBoundaries() {
+        return boundaries;
+    }
+
+    /**
+     * Puts every cell holding an entity of a MORE type on the boundary of that type.
+     *
+     * @param levelMap  the map to read
+     * @param moreTypes the types that may be MORE
+     */
+    private void rebuild(LevelMap levelMap, Set<EntityType> moreTypes) {
+        boundaries.clear();
+        for (EntityType type : moreTypes) {
+            Set<Point> boundary = new LinkedHashSet<>();
+            for (Entity entity : levelMap.getEntitiesOfType(type)) {
+                boundary.add(levelMap.getPosition(entity));
+            }
+            boundaries.put(type, boundary);
+        }
+    }
+
+    /**
+     * Puts a changed cell and its neighbours back on the boundary of each MORE type they hold.
+     *
+     * @param cell the changed cell, as {@code y * width + x}
+     */
+    private void touchCell(int cell) {
+        int x = cell % levelMap.getWidth();
+        int y = cell / levelMap.getWidth();
+        addToBoundaries(x, y);
+        for (Direction direction : Direction.values()) {
+            addToBoundaries(x + direction.dx, y + direction.dy);
+        }
+    }
+
+    private void addToBoundaries(int x, int y) {
+        for (Entity entity : levelMap.getEntitiesAt(x, y)) {
+            Set<Point> boundary = boundaries.get(entity.getType());
+            if (boundary != null) {
+                boundary.add(new Point(x, y));
+            }
+        }
+    }
+}
@@ -1,70 +1,196 @@
 package logic.level.turn;
 
-import application.GameController;
 import logic.rule.evaluator.RuleEvaluator;
 import logic.rule.parser.RuleParser;
 import model.action.CompositeAction;
 import model.entity.Direction;
+import model.entity.Entity;
+import model.entity.EntityType;
 import model.entity.TypeRegistry;
 import model.map.LevelMap;
+import model.rule.Rule;
+import model.rule.RuleChange;
 import model.rule.Ruleset;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Orchestrates the sequence of actions that occur during a game turn.
+ * <p>A turn only reads and changes the given {@link LevelState}: it plays no sound and touches no
+ * global state, so it can run headless in tests, solvers and replays. Reacting to the outcome is left to the caller.
+ * Each phase of the turn is reported to the orchestrator's own {@link TurnProfiler} when profiling is enabled.</p>
  */
 public class TurnOrchestrator {
 
     private final RuleEvaluator ruleEvaluator;
     private final CollisionResolver collisionResolver;
     private final InteractionHandler interactionHandler;
+    private final RuleParser ruleParser;
+    private final TurnProfiler profiler;
+
+    private int skippedParseCount = 0;
+    private RuleChange ruleChange = RuleChange.UNCHANGED;
 
     public TurnOrchestrator() {
+        this(new RuleParser());
+    }
+
+    /**
+     * Creates an orchestrator that re-evaluates rules with the given parser and reports to a profiler of its own.
+     *
+     * @param ruleParser the parser used to re-evaluate rules during a turn
+     */
+    public TurnOrchestrator(RuleParser ruleParser) {
+        this(ruleParser, new TurnProfiler());
+    }
+
+    /**
+     * Creates an orchestrator that re-evaluates rules with the given parser and reports its phases to the given profiler.
+     *
+     * @param ruleParser the parser used to re-evaluate rules during a turn
+     * @param profiler   the profiler collecting the phase timings
+     */
+    public TurnOrchestrator(RuleParser ruleParser, TurnProfiler profiler) {
         this.ruleEvaluator = new RuleEvaluator();
         this.collisionResolver = new CollisionResolver();
         this.interactionHandler = new InteractionHandler();
+        this.ruleParser = ruleParser;
+        this.profiler = profiler;
     }
 
     /**
-     * Executes a full game turn: moves YOU entities, then MOVE entities, then handles interactions.
+     * Executes a full game turn: moves YOU entities, then MOVE entities, then handles interactions,
+     * and finally re-evaluates the rules and checks the win and lose conditions.
+     * <p>The state is advanced in place and returned as part of the outcome; use {@link LevelState#copy()}
+     * first to keep the state from before the turn.</p>
      *
-     * @param direction  the direction of the player's input, or {@code null} for no movement
-     * @param levelMap   the current level map
-     * @param ruleset    the active ruleset
-     * @param ruleParser the parser used to re-evaluate rules after movement
-     * @return a {@link CompositeAction} representing everything that happened this turn
+     * @param state     the state to play the turn on
+     * @param direction the direction of the player's input, or {@code null} for no movement
+     * @return the {@link TurnOutcome} holding the resulting state and everything that happened this turn
      */
-    public CompositeAction runTurn(Direction direction, LevelMap levelMap, Ruleset ruleset, RuleParser ruleParser) {
+    public TurnOutcome step(LevelState state, Direction direction) {
+        LevelMap levelMap = state.getLevelMap();
+        Ruleset ruleset = state.getRuleset();
+        skippedParseCount = 0;
+        ruleChange = RuleChange.UNCHANGED;
+
         // First pass: YOU intents
+        long phaseStart = profiler.start();
         List<MoveIntent> youIntents = getYouIntents(direction, levelMap, ruleset);
         CompositeAction youAction = collisionResolver.resolveCollisions(youIntents, levelMap, ruleset, ruleEvaluator);
         youAction.execute();
+        profiler.record(TurnPhase.YOU_RESOLVE, phaseStart, levelMap.getEntityCount(), youIntents.size(), youAction.size());
 
         // Second pass: MOVE intents
+        phaseStart = profiler.start();
         List<MoveIntent> moveIntents = getMoveIntents(levelMap, ruleset);
         CompositeAction moveAction = collisionResolver.resolveCollisions(moveIntents, levelMap, ruleset, ruleEvaluator);
         moveAction.execute();
+        profiler.record(TurnPhase.MOVE_RESOLVE, phaseStart, levelMap.getEntityCount(), moveIntents.size(), moveAction.size());
 
         // Reparse rules after both movement passes
-        ruleset.setRules(ruleParser.parseRules(levelMap));
+        phaseStart = profiler.start();
+        reparseRules(youAction.affectsText() || moveAction.affectsText(), levelMap, ruleset);
+        profiler.record(TurnPhase.REPARSE, phaseStart, levelMap.getEntityCount(), 0, 0);
 
-        // Handle interactions
+        // Handle interactions (only planned here, so the map has not changed since the last parse)
+        phaseStart = profiler.start();
         CompositeAction interactAction = interactionHandler.handleInteractions(levelMap, ruleset, ruleEvaluator);
-        ruleset.setRules(ruleParser.parseRules(levelMap));
+        reparseRules(false, levelMap, ruleset);
         interactAction.execute();
+        profiler.record(TurnPhase.INTERACTIONS, phaseStart, levelMap.getEntityCount(), 0, interactAction.size());
 
-        // Check win
-        if(!ruleEvaluator.getWinConditionMetPositions(levelMap, ruleset).isEmpty()) {
-            GameController.getInstance().setHasPlayerWon(true);
-        }
+        // Reparse rules after interactions created, destroyed or transformed text
+        phaseStart = profiler.start();
+        reparseRules(interactAction.affectsText(), levelMap, ruleset);
+        profiler.record(TurnPhase.INTERACTION_REPARSE, phaseStart, levelMap.getEntityCount(), 0, 0);
+
+        // Check win and lose
+        phaseStart = profiler.start();
+        boolean isWon = isWon(state);
+        boolean isLost = isLost(state);
+        profiler.record(TurnPhase.WIN_CHECK, phaseStart, levelMap.getEntityCount(), 0, 0);
 
         // Combine all actions
         youAction.combine(moveAction);
         youAction.combine(interactAction);
 
+        return new TurnOutcome(state, youAction, isWon, isLost, ruleChange);
+    }
+
+    /**
+     * Plays a sequence of turns on the given state, one per direction, and combines their actions.
+     * <p>Rules are only parsed again inside a turn when text changed, so a sequence that never touches text
+     * does not parse at all. The state is advanced in place like {@link #step}.</p>
+     *
+     * @param state      the state to play the turns on
+     * @param directions the direction of each turn, where {@code null} is a turn without movement
+     * @return the {@link BatchOutcome} holding the final state, the per-step win and lose flags and the combined actions
+     */
+    public BatchOutcome stepAll(LevelState state, List<Direction> directions) {
+        CompositeAction actions = new CompositeAction();
+        boolean[] wonSteps = new boolean[directions.size()];
+        boolean[] lostSteps = new boolean[directions.size()];
+        for (int i = 0; i < directions.size(); i++) {
+            TurnOutcome outcome = step(state, directions.get(i));
+            actions.combine(outcome.getActions());
+            wonSteps[i] = outcome.isWon();
+            lostSteps[i] = outcome.isLost();
+        }
+        return new BatchOutcome(state, actions, wonSteps, lostSteps);
+    }
+
+    /**
+     * Returns whether a win condition is met in the given state.
+     *
+     * @param state the state to check
+     * @return {@code true} if any YOU entity shares a cell with a WIN entity
+     */
+    public boolean isWon(LevelState state) {
+        return !ruleEvaluator.getWinConditionMetPositions(state.getLevelMap(), state.getRuleset()).isEmpty();
+    }
 
-        return youAction;
+    /**
+     * Returns whether the given state is lost, meaning no entity is YOU.
+     *
+     * @param state the state to check
+     * @return {@code true} if there is no YOU entity left
+     */
+    public boolean isLost(LevelState state) {
+        LevelMap levelMap = state.getLevelMap();
+        return levelMap.getEntities().stream()
+                .noneMatch(entity -> ruleEvaluator.hasProperty(entity, TypeRegistry.YOU, levelMap, state.getRuleset()));
+    }
+
+    /**
+     * Returns how many rule parses were skipped during the last turn because no text entity
+     * was created, destroyed, moved or transformed since the previous parse.
+     *
+     * @return the number of avoided parses in the last call to {@link #step}
+     */
+    public int getSkippedParseCount() {
+        return skippedParseCount;
+    }
+
+    /**
+     * Parses the rules from the level map again if any text entity changed, otherwise counts the skipped parse.
+     *
+     * @param isTextChanged whether a text entity was affected since the previous parse
+     * @param levelMap      the current level map
+     * @param ruleset       the ruleset to update
+     */
+    private void reparseRules(boolean isTextChanged, LevelMap levelMap, Ruleset ruleset) {
+        if (!isTextChanged) {
+            skippedParseCount++;
+            return;
+        }
+        RuleChange change = ruleset.setRules(ruleParser.parseRules(levelMap));
+        ruleset.setTextEntities(levelMap.getTextEntities());
+        if (change != RuleChange.UNCHANGED) {
+            ruleChange = change;
+        }
     }
 
     /**
@@ -84,18 +210,29 @@ public class TurnOrchestrator {
 
     /**
      * Builds move intents for all entities that have the MOVE property (autonomous movers).
+     * <p>Only entities whose type is the subject of an "X IS MOVE" rule, or extends such a subject, are checked,
+     * and each mover gets a single intent even if several MOVE rules apply to it.</p>
      *
      * @param levelMap the current level map
      * @param ruleset  the active ruleset
      * @return a list of {@link MoveIntent} for each MOVE entity
      */
     private List<MoveIntent> getMoveIntents(LevelMap levelMap, Ruleset ruleset) {
-        return ruleset.getRules().stream()
-                .filter(rule -> rule.getEffect() == TypeRegistry.MOVE)
-                .filter(rule -> rule.getVerb() == TypeRegistry.IS)
-                .flatMap(rule -> levelMap.getEntities().stream()
-                        .filter(entity -> ruleEvaluator.hasPropertyFromRule(entity, rule, levelMap, ruleset))
-                        .map(entity -> new MoveIntent(entity, entity.getDirection(), true)))
+        Set<Entity> movers = new LinkedHashSet<>();
+        for (Rule rule : ruleset.getRulesWithEffect(TypeRegistry.MOVE)) {
+            if (rule.getVerb() != TypeRegistry.IS) {
+                continue;
+            }
+            for (EntityType type : ruleEvaluator.getSubtypes(rule.getSubject(), ruleset)) {
+                for (Entity entity : levelMap.getEntitiesOfType(type)) {
+                    if (!movers.contains(entity) && ruleEvaluator.hasPropertyFromRule(entity, rule, levelMap, ruleset)) {
+                        movers.add(entity);
+                    }
+                }
+            }
+        }
+        return movers.stream()
+                .map(entity -> new MoveIntent(entity, entity.getDirection(), true))
                 .toList();
     }
 }
@@ -0,0 +1,77 @@
+package logic.level.turn;
+
+import model.action.CompositeAction;
+import model.rule.RuleChange;
+
+/**
+ * The result of playing one turn: the state after the turn, what happened during it, and whether it ended the level.
+ */
+public class TurnOutcome {
+    private final LevelState state;
+    private final CompositeAction actions;
+    private final boolean isWon;
+    private final boolean isLost;
+    private final RuleChange ruleChange;
+
+    /**
+     * Creates the outcome of a turn.
+     *
+     * @param state      the state after the turn
+     * @param actions    every action executed during the turn
+     * @param isWon      whether a win condition is met after the turn
+     * @param isLost     whether no YOU entity is left after the turn
+     * @param ruleChange the last change made to the rules during the turn
+     */
+    public TurnOutcome(LevelState state, CompositeAction actions, boolean isWon, boolean isLost, RuleChange ruleChange) {
+        this.state = state;
+        this.actions = actions;
+        this.isWon = isWon;
+        this.isLost = isLost;
+        this.ruleChange = ruleChange;
+    }
+
+    /**
+     * Returns the state after the turn.
+     *
+     * @return the resulting level state
+     */
+    public LevelState getState() {
+        return state;
+    }
+
+    /**
+     * Returns every action executed during the turn, in order.
+     *
+     * @return the actions of the turn, which can be undone as a whole
+     */
+    public CompositeAction getActions() {
+        return actions;
+    }
+
+    /**
+     * Returns whether a win condition is met after the turn.
+     *
+     * @return {@code true} if the level is won
+     */
+    public boolean isWon() {
+        return isWon;
+    }
+
+    /**
+     * Returns whether no entity is YOU after the turn.
+     *
+     * @return {@code true} if the level is lost
+     */
+    public boolean isLost() {
+        return isLost;
+    }
+
+    /**
+     * Returns the last change made to the rules during the turn.
+     *
+     * @return {@link RuleChange#UNCHANGED} if the rules stayed the same for the whole turn
+     */
+    public RuleChange getRuleChange() {
+        return ruleChange;
+    }
+}
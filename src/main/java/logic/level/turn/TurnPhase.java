@@ -0,0 +1,19 @@
+package logic.level.turn;
+
+/**
+ * The phases of a game turn, in the order they are played by {@link TurnOrchestrator}.
+ */
+public enum TurnPhase {
+    /** Resolving and executing the moves of YOU entities. */
+    YOU_RESOLVE,
+    /** Resolving and executing the moves of MOVE entities. */
+    MOVE_RESOLVE,
+    /** Re-evaluating the rules after both movement passes. */
+    REPARSE,
+    /** Planning and executing interactions such as SINK, DEFEAT, HOT/MELT and transformations. */
+    INTERACTIONS,
+    /** Re-evaluating the rules after the interactions. */
+    INTERACTION_REPARSE,
+    /** Checking the win and lose conditions. */
+    WIN_CHECK
+}
@@ -0,0 +1,33 @@
+package logic.level.turn;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event recorded by {@link TurnProfiler} for every profiled turn phase.
+ */
+@Name("baba.TurnPhase")
+@Label("Turn Phase")
+@Category({"Baba", "Turn"})
+@Description("Duration and workload of one phase of a game turn")
+class TurnPhaseEvent extends Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Duration")
+    @Timespan(Timespan.NANOSECONDS)
+    long durationNanos;
+
+    @Label("Entity Count")
+    int entityCount;
+
+    @Label("Intent Count")
+    int intentCount;
+
+    @Label("Action Count")
+    int actionCount;
+}
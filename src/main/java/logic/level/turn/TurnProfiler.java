@@ -0,0 +1,228 @@
+package logic.level.turn;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Collects per-phase timings of game turns.
+ * <p>Every recorded phase is committed as a {@link TurnPhaseEvent} to JFR and added to an in-process
+ * histogram that can be dumped at any time with {@link #dump()}. Each {@link TurnOrchestrator} reports to the
+ * profiler it was created with, so separate orchestrators keep separate histograms. Profiling is off unless the
+ * system property {@code turn.profiler.enabled} is set or {@link #setEnabled(boolean)} is called; while it is off,
+ * {@link #start()} and {@link #record} return after a single field read.</p>
+ */
+public class TurnProfiler {
+    /** Number of power-of-two duration buckets, enough for any non-negative {@code long} duration. */
+    private static final int BUCKET_COUNT = 64;
+
+    private volatile boolean isEnabled;
+    private final Map<TurnPhase, PhaseHistogram> histograms;
+
+    /** Creates a profiler with empty histograms, enabled if the system property {@code turn.profiler.enabled} is set. */
+    public TurnProfiler() {
+        isEnabled = Boolean.getBoolean("turn.profiler.enabled");
+        histograms = new EnumMap<>(TurnPhase.class);
+        for (TurnPhase phase : TurnPhase.values()) {
+            histograms.put(phase, new PhaseHistogram());
+        }
+    }
+
+    /**
+     * Returns whether phases are currently being recorded.
+     *
+     * @return {@code true} if profiling is enabled
+     */
+    public boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * Turns profiling on or off. Already recorded histograms are kept.
+     *
+     * @param isEnabled whether phases should be recorded
+     */
+    public void setEnabled(boolean isEnabled) {
+        this.isEnabled = isEnabled;
+    }
+
+    /**
+     * Returns the start timestamp of a phase.
+     *
+     * @return the current {@link System#nanoTime()}, or {@code 0} if profiling is disabled
+     */
+    public long start() {
+        return isEnabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Records a finished phase. Does nothing if profiling is disabled.
+     *
+     * @param phase       the phase that finished
+     * @param startNanos  the timestamp returned by {@link #start()} when the phase began
+     * @param entityCount the number of entities on the map during the phase
+     * @param intentCount the number of move intents handled by the phase
+     * @param actionCount the number of actions produced by the phase
+     */
+    public void record(TurnPhase phase, long startNanos, int entityCount, int intentCount, int actionCount) {
+        if (!isEnabled) {
+            return;
+        }
+        long durationNanos = System.nanoTime() - startNanos;
+        histograms.get(phase).add(durationNanos, entityCount, intentCount, actionCount);
+
+        TurnPhaseEvent event = new TurnPhaseEvent();
+        if (event.isEnabled()) {
+            event.phase = phase.name();
+            event.durationNanos = durationNanos;
+            event.entityCount = entityCount;
+            event.intentCount = intentCount;
+            event.actionCount = actionCount;
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns the histogram of the given phase.
+     *
+     * @param phase the phase to query
+     * @return the histogram collected for the phase
+     */
+    public PhaseHistogram getHistogram(TurnPhase phase) {
+        return histograms.get(phase);
+    }
+
+    /** Clears every histogram. */
+    public void reset() {
+        for (PhaseHistogram histogram : histograms.values()) {
+            histogram.clear();
+        }
+    }
+
+    /**
+     * Formats the collected histograms as a table, one row per phase.
+     *
+     * @return the report, with durations in microseconds
+     */
+    public String dump() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%-20s %8s %10s %10s %10s %10s %9s %9s %9s%n",
+                "phase", "count", "mean_us", "p50_us", "p99_us", "max_us", "entities", "intents", "actions"));
+        for (TurnPhase phase : TurnPhase.values()) {
+            PhaseHistogram histogram = histograms.get(phase);
+            synchronized (histogram) {
+                long count = Math.max(histogram.count, 1);
+                builder.append(String.format("%-20s %8d %10.1f %10.1f %10.1f %10.1f %9.1f %9.1f %9.1f%n",
+                        phase, histogram.count,
+                        histogram.totalNanos / (double) count / 1000.0,
+                        histogram.getPercentileNanos(0.5) / 1000.0,
+                        histogram.getPercentileNanos(0.99) / 1000.0,
+                        histogram.maxNanos / 1000.0,
+                        histogram.totalEntities / (double) count,
+                        histogram.totalIntents / (double) count,
+                        histogram.totalActions / (double) count));
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Duration histogram of one phase with power-of-two buckets, along with the summed workload counts.
+     */
+    public static class PhaseHistogram {
+        private final long[] buckets = new long[BUCKET_COUNT];
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+        private long totalEntities;
+        private long totalIntents;
+        private long totalActions;
+
+        private synchronized void add(long durationNanos, int entityCount, int intentCount, int actionCount) {
+            long nanos = Math.max(durationNanos, 0L);
+            buckets[Math.min(BUCKET_COUNT - Long.numberOfLeadingZeros(nanos), BUCKET_COUNT - 1)]++;
+            count++;
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            totalEntities += entityCount;
+            totalIntents += intentCount;
+            totalActions += actionCount;
+        }
+
+        private synchronized void clear() {
+            Arrays.fill(buckets, 0L);
+            count = 0;
+            totalNanos = 0;
+            maxNanos = 0;
+            totalEntities = 0;
+            totalIntents = 0;
+            totalActions = 0;
+        }
+
+        /**
+         * Returns the number of recorded phases.
+         *
+         * @return the sample count
+         */
+        public synchronized long getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the summed duration of all recorded phases.
+         *
+         * @return the total duration in nanoseconds
+         */
+        public synchronized long getTotalNanos() {
+            return totalNanos;
+        }
+
+        /**
+         * Returns the longest recorded duration.
+         *
+         * @return the maximum duration in nanoseconds
+         */
+        public synchronized long getMaxNanos() {
+            return maxNanos;
+        }
+
+        /**
+         * Returns the summed number of move intents over all recorded phases.
+         *
+         * @return the total intent count
+         */
+        public synchronized long getTotalIntents() {
+            return totalIntents;
+        }
+
+        /**
+         * Returns the summed number of actions over all recorded phases.
+         *
+         * @return the total action count
+         */
+        public synchronized long getTotalActions() {
+            return totalActions;
+        }
+
+        /**
+         * Returns an upper bound of the given percentile of the recorded durations, accurate to a factor of two.
+         *
+         * @param percentile the percentile between {@code 0} and {@code 1}
+         * @return the upper bound of the bucket holding the percentile, in nanoseconds
+         */
+        public synchronized long getPercentileNanos(double percentile) {
+            if (count == 0) {
+                return 0L;
+            }
+            long rank = (long) Math.ceil(percentile * count);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                seen += buckets[i];
+                if (seen >= Math.max(rank, 1)) {
+                    return Math.min(i == 0 ? 0L : (1L << i) - 1, maxNanos);
+                }
+            }
+            return maxNanos;
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package logic.level.turn;
+
+import model.entity.Entity;
+import model.entity.EntityType;
+import model.map.LevelMap;
+import model.map.MapView;
+
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+
+/**
+ * A lightweight copy-on-write view of a level map used to track tentative moves while resolving collisions.
+ * <p>Nothing is copied up front: an entity is shadowed by a private copy the first time it is moved, rotated
+ * or looked up by id, and only the cells it leaves or enters are copied. Every other query falls through to
+ * the real map, which is never modified. Only entities of the real map can be moved.</p>
+ */
+class WorkingMap implements MapView {
+    private final LevelMap baseMap;
+    private final Map<UUID, Entity> shadows;
+    private final Map<UUID, Entity> originals;
+    private final Map<Entity, Point> positions;
+    private final Map<Point, List<Entity>> cells;
+    private final Set<UUID> removedIds;
+
+    /**
+     * Creates an empty overlay on top of the given map.
+     *
+     * @param baseMap the real level map
+     */
+    WorkingMap(LevelMap baseMap) {
+        this.baseMap = baseMap;
+        this.shadows = new HashMap<>();
+        this.originals = new HashMap<>();
+        this.positions = new HashMap<>();
+        this.cells = new HashMap<>();
+        this.removedIds = new HashSet<>();
+    }
+
+    /**
+     * Returns the entity on the real map that the given working entity stands for.
+     *
+     * @param entity an entity returned by this working map, or a real entity
+     * @return the corresponding entity on the real map
+     */
+    Entity getOriginal(Entity entity) {
+        Entity original = originals.get(entity.getEntityId());
+        return original != null ? original : entity;
+    }
+
+    @Override
+    public int getWidth() {
+        return baseMap.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return baseMap.getHeight();
+    }
+
+    @Override
+    public boolean isInside(int x, int y) {
+        return baseMap.isInside(x, y);
+    }
+
+    @Override
+    public void removeEntity(Entity entity) {
+        if (removedIds.contains(entity.getEntityId())) {
+            return;
+        }
+        Entity shadow = shadowOf(entity);
+        Point position = getPosition(shadow);
+        editableCell(position).remove(shadow);
+        positions.remove(shadow);
+        removedIds.add(entity.getEntityId());
+    }
+
+    @Override
+    public void setPosition(Entity entity, int newX, int newY) {
+        Entity shadow = shadowOf(entity);
+        if (!removedIds.remove(entity.getEntityId())) {
+            editableCell(getPosition(shadow)).remove(shadow);
+        }
+        Point newPosition = new Point(newX, newY);
+        editableCell(newPosition).add(shadow);
+        positions.put(shadow, newPosition);
+    }
+
+    @Override
+    public Point getPosition(Entity entity) {
+        if (removedIds.contains(entity.getEntityId())) {
+            throw new IllegalStateException("Entity not found in map: " + entity.getEntityId());
+        }
+        Point position = positions.get(entity);
+        if (position != null) {
+            return new Point(position);
+        }
+        return baseMap.getPosition(entity);
+    }
+
+    @Override
+    public int getX(Entity entity) {
+        if (removedIds.contains(entity.getEntityId())) {
+            throw new IllegalStateException("Entity not found in map: " + entity.getEntityId());
+        }
+        Point position = positions.get(entity);
+        return position != null ? position.x : baseMap.getX(entity);
+    }
+
+    @Override
+    public int getY(Entity entity) {
+        if (removedIds.contains(entity.getEntityId())) {
+            throw new IllegalStateException("Entity not found in map: " + entity.getEntityId());
+        }
+        Point position = positions.get(entity);
+        return position != null ? position.y : baseMap.getY(entity);
+    }
+
+    @Override
+    public List<Entity> getEntitiesAt(int x, int y) {
+        List<Entity> cell = cells.get(new Point(x, y));
+        return cell != null ? cell : baseMap.getEntitiesAt(x, y);
+    }
+
+    @Override
+    public Set<Point> getOccupiedPositions() {
+        Set<Point> occupied = new HashSet<>(baseMap.getOccupiedPositions());
+        for (Map.Entry<Point, List<Entity>> cell : cells.entrySet()) {
+            if (cell.getValue().isEmpty()) {
+                occupied.remove(cell.getKey());
+            } else {
+                occupied.add(cell.getKey());
+            }
+        }
+        return Collections.unmodifiableSet(occupied);
+    }
+
+    @Override
+    public List<Entity> getEntities() {
+        List<Entity> entities = new ArrayList<>();
+        for (Entity entity : baseMap.getEntities()) {
+            if (removedIds.contains(entity.getEntityId())) {
+                continue;
+            }
+            Entity shadow = shadows.get(entity.getEntityId());
+            entities.add(shadow != null ? shadow : entity);
+        }
+        return entities;
+    }
+
+    @Override
+    public int getEntityCount() {
+        return baseMap.getEntityCount() - removedIds.size();
+    }
+
+    @Override
+    public Set<Entity> getEntitiesOfType(EntityType type) {
+        Set<Entity> entities = new LinkedHashSet<>();
+        for (Entity entity : baseMap.getEntitiesOfType(type)) {
+            if (removedIds.contains(entity.getEntityId())) {
+                continue;
+            }
+            Entity shadow = shadows.get(entity.getEntityId());
+            entities.add(shadow != null ? shadow : entity);
+        }
+        return Collections.unmodifiableSet(entities);
+    }
+
+    @Override
+    public Set<Entity> getTextEntities() {
+        Set<Entity> texts = new HashSet<>();
+        for (Entity entity : getEntities()) {
+            if (entity.getType().isText()) {
+                texts.add(entity);
+            }
+        }
+        return Collections.unmodifiableSet(texts);
+    }
+
+    /**
+     * Returns the working copy of the entity with the given id, creating it on first access
+     * so that changes to its direction stay private to this working map.
+     *
+     * @param entityId the UUID to search for
+     * @return the working entity, or {@code null} if it is not on the map
+     */
+    @Override
+    public Entity getEntityById(UUID entityId) {
+        if (removedIds.contains(entityId)) {
+            return null;
+        }
+        Entity original = baseMap.getEntityById(entityId);
+        return original != null ? shadowOf(original) : null;
+    }
+
+    /**
+     * Returns the private copy of the entity, creating it and swapping it into its cell if needed.
+     *
+     * @param entity the real entity or its working copy
+     * @return the working copy
+     */
+    private Entity shadowOf(Entity entity) {
+        Entity shadow = shadows.get(entity.getEntityId());
+        if (shadow != null) {
+            return shadow;
+        }
+        Entity original = baseMap.getEntityById(entity.getEntityId());
+        shadow = new Entity(original);
+        shadows.put(shadow.getEntityId(), shadow);
+        originals.put(shadow.getEntityId(), original);
+
+        List<Entity> cell = editableCell(baseMap.getPosition(original));
+        cell.set(cell.indexOf(original), shadow);
+        return shadow;
+    }
+
+    /**
+     * Returns the overridden contents of the cell, copying them from the real map on first write.
+     *
+     * @param position the cell position
+     * @return a mutable list of the entities in the cell
+     */
+    private List<Entity> editableCell(Point position) {
+        return cells.computeIfAbsent(position, key -> new ArrayList<>(baseMap.getEntitiesAt(key)));
+    }
+}
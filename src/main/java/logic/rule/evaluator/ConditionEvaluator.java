@@ -8,7 +8,7 @@ import logic.rule.evaluator.conditionCheckers.OnChecker;
 import model.entity.Entity;
 import model.entity.EntityType;
 import model.entity.TypeRegistry;
-import model.map.LevelMap;
+import model.map.MapView;
 import model.rule.Condition;
 import model.rule.Ruleset;
 
@@ -38,7 +38,7 @@ public class ConditionEvaluator {
      * @param ruleset    the active ruleset
      * @return {@code true} if every condition is satisfied
      */
-    public boolean evaluate(Entity entity, List<Condition> conditions, LevelMap levelMap, Ruleset ruleset) {
+    public boolean evaluate(Entity entity, List<Condition> conditions, MapView levelMap, Ruleset ruleset) {
         for (Condition condition : conditions) {
             ConditionChecker checker = conditionCheckers.get(condition.getCondition());
             if (checker == null || !checker.isSatisfied(entity, condition, levelMap, ruleset)) {
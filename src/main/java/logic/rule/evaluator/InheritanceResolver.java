@@ -3,7 +3,7 @@ package logic.rule.evaluator;
 import model.entity.Entity;
 import model.entity.EntityType;
 import model.entity.TypeRegistry;
-import model.map.LevelMap;
+import model.map.MapView;
 import model.rule.Rule;
 import model.rule.Ruleset;
 
@@ -31,7 +31,7 @@ public class InheritanceResolver {
      * @param ruleset    the active ruleset
      * @return {@code true} if the entity is a (direct or inherited) instance of targetType
      */
-    public boolean isInstanceOf(Entity entity, EntityType targetType, LevelMap levelMap, Ruleset ruleset) {
+    public boolean isInstanceOf(Entity entity, EntityType targetType, MapView levelMap, Ruleset ruleset) {
         List<Rule> extendRules = ruleset.getRules().stream()
                 .filter(rule -> rule.getVerb() == TypeRegistry.EXTEND)
                 .toList();
@@ -53,7 +53,7 @@ public class InheritanceResolver {
      */
     private boolean isInstanceOfRecursive(Entity entity, EntityType currentType, EntityType targetType,
                                          List<Rule> extendRules, Set<EntityType> visitedTypes,
-                                         LevelMap levelMap, Ruleset ruleset) {
+                                         MapView levelMap, Ruleset ruleset) {
 
         if (currentType.equals(targetType)) {
             return true;
@@ -4,12 +4,17 @@ import model.entity.Entity;
 import model.entity.EntityType;
 import model.entity.TypeRegistry;
 import model.entity.word.PropertyType;
-import model.map.LevelMap;
+import model.map.MapView;
 import model.rule.Rule;
 import model.rule.Ruleset;
 
 import java.awt.*;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import model.rule.Transformation;
 
@@ -34,7 +39,7 @@ public class RuleEvaluator {
      * @param ruleset  the active ruleset
      * @return {@code true} if the entity matches the rule's subject and all its conditions
      */
-    public boolean hasPropertyFromRule(Entity entity, Rule rule, LevelMap levelMap, Ruleset ruleset) {
+    public boolean hasPropertyFromRule(Entity entity, Rule rule, MapView levelMap, Ruleset ruleset) {
         boolean isSubject = inheritanceResolver.isInstanceOf(entity, rule.getSubject(), levelMap, ruleset);
         boolean conditionsMet = conditionEvaluator.evaluate(entity, rule.getConditions(), levelMap, ruleset);
         return isSubject && conditionsMet;
@@ -50,14 +55,13 @@ public class RuleEvaluator {
      * @param ruleset  the active ruleset
      * @return {@code true} if any rule grants the property to this entity
      */
-    public boolean hasProperty(Entity entity, PropertyType property, LevelMap levelMap, Ruleset ruleset) {
+    public boolean hasProperty(Entity entity, PropertyType property, MapView levelMap, Ruleset ruleset) {
         // All text entities are inherently PUSH
         if (property == TypeRegistry.PUSH && entity.getType().isText()) {
             return true;
         }
 
-        return ruleset.getRules().stream()
-                .filter(rule -> rule.getEffect() == property)
+        return ruleset.getRulesWithEffect(property).stream()
                 .anyMatch(rule -> hasPropertyFromRule(entity, rule, levelMap, ruleset));
     }
 
@@ -69,7 +73,7 @@ public class RuleEvaluator {
      * @param ruleset  the active ruleset
      * @return list of entities with the property
      */
-    public List<Entity> getEntitiesWithProperty(PropertyType property, LevelMap levelMap, Ruleset ruleset) {
+    public List<Entity> getEntitiesWithProperty(PropertyType property, MapView levelMap, Ruleset ruleset) {
         return levelMap.getEntities().stream()
                 .filter(entity -> hasProperty(entity, property, levelMap, ruleset))
                 .toList();
@@ -84,7 +88,7 @@ public class RuleEvaluator {
      * @param position the grid position to check
      * @return list of entities at that position with the property
      */
-    public List<Entity> getEntitiesWithPropertyAt(PropertyType property, LevelMap levelMap, Ruleset ruleset, Point position) {
+    public List<Entity> getEntitiesWithPropertyAt(PropertyType property, MapView levelMap, Ruleset ruleset, Point position) {
         return getEntitiesWithProperty(property, levelMap, ruleset).stream()
                 .filter(entity -> position.equals(levelMap.getPosition(entity)))
                 .toList();
@@ -99,7 +103,7 @@ public class RuleEvaluator {
      * @param position the grid position to check
      * @return {@code true} if any entity at the position has the property
      */
-    public boolean hasEntityWithPropertyAt(PropertyType property, LevelMap levelMap, Ruleset ruleset, Point position) {
+    public boolean hasEntityWithPropertyAt(PropertyType property, MapView levelMap, Ruleset ruleset, Point position) {
         return levelMap.getEntitiesAt(position).stream()
                 .anyMatch(entity -> hasProperty(entity, property, levelMap, ruleset));
     }
@@ -112,28 +116,40 @@ public class RuleEvaluator {
      * @param ruleset  the active ruleset
      * @return list of {@link Transformation} objects describing each entity-to-type change
      */
-    public List<Transformation> getTransformations(LevelMap levelMap, Ruleset ruleset) {
-        List<Entity> XisXEntities = ruleset.getRules().stream()
-                .filter(rule -> !(rule.getEffect() instanceof PropertyType))
-                .filter(rule -> rule.getVerb() == TypeRegistry.IS)
-                .flatMap(rule -> levelMap.getEntities().stream()
-                        .filter(entity -> inheritanceResolver.isInstanceOf(entity, rule.getSubject(), levelMap, ruleset))
-                        .filter(entity -> conditionEvaluator.evaluate(entity, rule.getConditions(), levelMap, ruleset))
-                        .filter(entity -> entity.getType() == rule.getEffect()))
-                .toList();
+    public List<Transformation> getTransformations(MapView levelMap, Ruleset ruleset) {
+        List<Transformation> transformations = new ArrayList<>();
+        for (Entity entity : levelMap.getEntities()) {
+            for (EntityType targetType : getTransformationTargets(entity, levelMap, ruleset)) {
+                transformations.add(new Transformation(entity, targetType));
+            }
+        }
+        return transformations;
+    }
 
-        return ruleset.getRules().stream()
-                .filter(rule -> !(rule.getEffect() instanceof PropertyType))
-                .filter(rule -> rule.getVerb() == TypeRegistry.IS)
-                .flatMap(rule -> {
-                    EntityType targetType = rule.getEffect();
-                    return levelMap.getEntities().stream()
-                            .filter(entity -> inheritanceResolver.isInstanceOf(entity, rule.getSubject(), levelMap, ruleset))
-                            .filter(entity -> conditionEvaluator.evaluate(entity, rule.getConditions(), levelMap, ruleset))
-                            .filter(entity -> !XisXEntities.contains(entity))
-                            .map(entity -> new Transformation(entity, targetType));
-                })
-                .toList();
+    /**
+     * Returns the types the given entity is transformed into this frame by "X IS Y" rules (where Y is not a property),
+     * in rule order. The list is empty if an "X IS X" rule keeps the entity as it is.
+     *
+     * @param entity   the entity to check
+     * @param levelMap the current level map
+     * @param ruleset  the active ruleset
+     * @return the target types of every transformation rule applying to the entity
+     */
+    public List<EntityType> getTransformationTargets(Entity entity, MapView levelMap, Ruleset ruleset) {
+        List<EntityType> targetTypes = new ArrayList<>();
+        for (Rule rule : ruleset.getRules()) {
+            if (rule.getEffect() instanceof PropertyType || rule.getVerb() != TypeRegistry.IS) {
+                continue;
+            }
+            if (!hasPropertyFromRule(entity, rule, levelMap, ruleset)) {
+                continue;
+            }
+            if (entity.getType() == rule.getEffect()) {
+                return List.of();
+            }
+            targetTypes.add(rule.getEffect());
+        }
+        return targetTypes;
     }
 
     /**
@@ -143,17 +159,56 @@ public class RuleEvaluator {
      * @param ruleset  the active ruleset
      * @return list of {@link Transformation} objects describing each HAS spawn
      */
-    public List<Transformation> getHasTransformations(LevelMap levelMap, Ruleset ruleset) {
-        return ruleset.getRules().stream()
-                .filter(rule -> rule.getVerb() == TypeRegistry.HAS)
-                .flatMap(rule -> {
-                    EntityType targetType = rule.getEffect();
-                    return levelMap.getEntities().stream()
-                            .filter(entity -> inheritanceResolver.isInstanceOf(entity, rule.getSubject(), levelMap, ruleset))
-                            .filter(entity -> conditionEvaluator.evaluate(entity, rule.getConditions(), levelMap, ruleset))
-                            .map(entity -> new Transformation(entity, targetType));
-                })
-                .toList();
+    public List<Transformation> getHasTransformations(MapView levelMap, Ruleset ruleset) {
+        List<Transformation> transformations = new ArrayList<>();
+        for (Entity entity : levelMap.getEntities()) {
+            for (EntityType targetType : getHasTargets(entity, levelMap, ruleset)) {
+                transformations.add(new Transformation(entity, targetType));
+            }
+        }
+        return transformations;
+    }
+
+    /**
+     * Returns the types spawned by "X HAS Y" rules when the given entity is destroyed, in rule order.
+     *
+     * @param entity   the entity to check
+     * @param levelMap the current level map
+     * @param ruleset  the active ruleset
+     * @return the target types of every HAS rule applying to the entity
+     */
+    public List<EntityType> getHasTargets(Entity entity, MapView levelMap, Ruleset ruleset) {
+        List<EntityType> targetTypes = new ArrayList<>();
+        for (Rule rule : ruleset.getRules()) {
+            if (rule.getVerb() == TypeRegistry.HAS && hasPropertyFromRule(entity, rule, levelMap, ruleset)) {
+                targetTypes.add(rule.getEffect());
+            }
+        }
+        return targetTypes;
+    }
+
+    /**
+     * Returns the given type together with every type that may extend it through "X EXTEND Y" rules,
+     * ignoring the rules' conditions. Conditions are checked later for each entity.
+     *
+     * @param type    the type to start from
+     * @param ruleset the active ruleset
+     * @return the type and all its possible subtypes
+     */
+    public Set<EntityType> getSubtypes(EntityType type, Ruleset ruleset) {
+        Set<EntityType> subtypes = new LinkedHashSet<>();
+        Deque<EntityType> pending = new ArrayDeque<>();
+        subtypes.add(type);
+        pending.add(type);
+        while (!pending.isEmpty()) {
+            EntityType current = pending.poll();
+            for (Rule rule : ruleset.getRulesWithEffect(current)) {
+                if (rule.getVerb() == TypeRegistry.EXTEND && subtypes.add(rule.getSubject())) {
+                    pending.add(rule.getSubject());
+                }
+            }
+        }
+        return subtypes;
     }
 
     /**
@@ -164,7 +219,7 @@ public class RuleEvaluator {
      * @param ruleset  the active ruleset
      * @return list of positions where the win condition is met
      */
-    public List<Point> getWinConditionMetPositions(LevelMap levelMap, Ruleset ruleset) {
+    public List<Point> getWinConditionMetPositions(MapView levelMap, Ruleset ruleset) {
         return levelMap.getEntities().stream()
                 .filter(entity -> hasProperty(entity, TypeRegistry.WIN, levelMap, ruleset))
                 .filter(entity -> hasEntityWithPropertyAt(
@@ -1,7 +1,7 @@
 package logic.rule.evaluator.conditionCheckers;
 
 import model.entity.Entity;
-import model.map.LevelMap;
+import model.map.MapView;
 import model.rule.Condition;
 import model.rule.Ruleset;
 
@@ -10,5 +10,5 @@ import model.rule.Ruleset;
  * Defines a method to check if a specific condition is satisfied for a given entity within a level map and ruleset.
  */
 public interface ConditionChecker {
-    boolean isSatisfied(Entity entity, Condition condition, LevelMap levelMap, Ruleset ruleset);
+    boolean isSatisfied(Entity entity, Condition condition, MapView levelMap, Ruleset ruleset);
 }
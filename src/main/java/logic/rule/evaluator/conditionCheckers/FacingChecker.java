@@ -3,7 +3,7 @@ package logic.rule.evaluator.conditionCheckers;
 import model.entity.Direction;
 import model.entity.Entity;
 import model.entity.EntityType;
-import model.map.LevelMap;
+import model.map.MapView;
 import model.rule.Condition;
 import model.rule.Ruleset;
 
@@ -13,7 +13,7 @@ import java.util.List;
 public class FacingChecker implements ConditionChecker {
     /** {@inheritDoc} Satisfied when the entity is facing a cell occupied by the condition's parameter type. */
     @Override
-    public boolean isSatisfied(Entity entity, Condition condition, LevelMap levelMap, Ruleset ruleset) {
+    public boolean isSatisfied(Entity entity, Condition condition, MapView levelMap, Ruleset ruleset) {
         EntityType targetFacing = condition.getParameter();
         Direction facing = entity.getDirection();
         int checkX = levelMap.getX(entity) + facing.dx;
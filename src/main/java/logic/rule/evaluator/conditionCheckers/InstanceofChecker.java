@@ -3,7 +3,7 @@ package logic.rule.evaluator.conditionCheckers;
 import logic.rule.evaluator.InheritanceResolver;
 import model.entity.Entity;
 import model.entity.EntityType;
-import model.map.LevelMap;
+import model.map.MapView;
 import model.rule.Condition;
 import model.rule.Ruleset;
 
@@ -12,7 +12,7 @@ public class InstanceofChecker implements ConditionChecker {
 
     /** {@inheritDoc} Satisfied when the entity is an instance of the condition's parameter type. */
     @Override
-    public boolean isSatisfied(Entity entity, Condition condition, LevelMap levelMap, Ruleset ruleset) {
+    public boolean isSatisfied(Entity entity, Condition condition, MapView levelMap, Ruleset ruleset) {
         InheritanceResolver inheritanceResolver = new InheritanceResolver();
         EntityType targetType = condition.getParameter();
         return inheritanceResolver.isInstanceOf(entity, targetType, levelMap, ruleset);
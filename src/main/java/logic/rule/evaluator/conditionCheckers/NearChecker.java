@@ -2,7 +2,7 @@ package logic.rule.evaluator.conditionCheckers;
 
 import model.entity.Entity;
 import model.entity.EntityType;
-import model.map.LevelMap;
+import model.map.MapView;
 import model.rule.Condition;
 import model.rule.Ruleset;
 
@@ -12,7 +12,7 @@ import java.util.List;
 public class NearChecker implements ConditionChecker {
     /** {@inheritDoc} Satisfied when the entity is within 1 cell (including diagonals) of the condition's parameter type. */
     @Override
-    public boolean isSatisfied(Entity entity, Condition condition, LevelMap levelMap, Ruleset ruleset) {
+    public boolean isSatisfied(Entity entity, Condition condition, MapView levelMap, Ruleset ruleset) {
         int entityX = levelMap.getX(entity);
         int entityY = levelMap.getY(entity);
         EntityType targetNear = condition.getParameter();
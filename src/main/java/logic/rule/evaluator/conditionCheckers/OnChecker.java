@@ -2,7 +2,7 @@ package logic.rule.evaluator.conditionCheckers;
 
 import model.entity.Entity;
 import model.entity.EntityType;
-import model.map.LevelMap;
+import model.map.MapView;
 import model.rule.Condition;
 import model.rule.Ruleset;
 
@@ -12,7 +12,7 @@ import java.util.List;
 public class OnChecker implements ConditionChecker {
     /** {@inheritDoc} Satisfied when the entity shares its cell with the condition's parameter type. */
     @Override
-    public boolean isSatisfied(Entity entity, Condition condition, LevelMap levelMap, Ruleset ruleset) {
+    public boolean isSatisfied(Entity entity, Condition condition, MapView levelMap, Ruleset ruleset) {
         int checkX = levelMap.getX(entity);
         int checkY = levelMap.getY(entity);
         EntityType targetOn = condition.getParameter();
@@ -4,6 +4,7 @@ import model.entity.Entity;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 
 /**
@@ -21,22 +22,34 @@ public class PermutationGenerator {
         List<List<Entity>> result = new ArrayList<>();
 
         for(List<List<Entity>> line : textTiles) {
-            generateRecursive(result, line, new ArrayList<>());
+            generate(line, permutation -> result.add(new ArrayList<>(permutation)));
         }
 
         return result;
     }
 
+    /**
+     * Generates the entity-sequence permutations of a single word-tile group and hands each one to the consumer
+     * as soon as it is complete, without collecting them.
+     * The same list instance is reused between calls, so the consumer must copy it if it needs to keep it.
+     *
+     * @param line     the word-tile group to permute
+     * @param consumer receives every permuted entity sequence
+     */
+    public void generate(List<List<Entity>> line, Consumer<List<Entity>> consumer) {
+        generateRecursive(consumer, line, new ArrayList<>());
+    }
+
     /**
      * Recursively builds permutations by picking one entity from each tile slot.
      *
-     * @param result         the accumulator to add completed sequences to
+     * @param consumer       receives every completed sequence
      * @param processingLine the current tile-group being permuted
      * @param current        the sequence built so far in the current recursion branch
      */
-    private void generateRecursive(List<List<Entity>> result, List<List<Entity>> processingLine, List<Entity> current) {
+    private void generateRecursive(Consumer<List<Entity>> consumer, List<List<Entity>> processingLine, List<Entity> current) {
         if(processingLine.size() == current.size()) {
-            result.add(new ArrayList<>(current));
+            consumer.accept(current);
             return;
         }
 
@@ -44,7 +57,7 @@ public class PermutationGenerator {
         List<Entity> nextEntities = processingLine.get(nextIndex);
         for(Entity nextEntity : nextEntities) {
             current.add(nextEntity);
-            generateRecursive(result, processingLine, current);
+            generateRecursive(consumer, processingLine, current);
             current.removeLast();
         }
     }
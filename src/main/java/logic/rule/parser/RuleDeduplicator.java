@@ -25,7 +25,14 @@ public class RuleDeduplicator {
                 .toList();
     }
 
-    private boolean checkSeen(Rule rule, Set<String> seen) {
+    /**
+     * Records the rule's entity signature and returns whether it is the first rule seen with that signature.
+     *
+     * @param rule the rule to check
+     * @param seen the signatures of the rules accepted so far
+     * @return {@code true} if the rule is not a duplicate and should be kept
+     */
+    public boolean checkSeen(Rule rule, Set<String> seen) {
         String ruleSignature = rule.getEntitySignature();
         if(seen.contains(ruleSignature)) {
             return false;
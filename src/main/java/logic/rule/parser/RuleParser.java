@@ -1,13 +1,14 @@
 package logic.rule.parser;
 
 import model.entity.Entity;
-import model.entity.word.WordType;
 import model.map.LevelMap;
 import model.rule.Rule;
-import model.rule.Ruleset;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Parses all rules from a level map using the pipeline of:
@@ -18,6 +19,11 @@ import java.util.List;
  * <li>Semantic Validation</li>
  * <li>Rule Deduplication</li>
  * </ol>
+ * <p>The sequential mode runs these stages fused in a single pass: every permutation goes straight into the
+ * syntax state machine, and each rule it emits is checked and deduplicated inline, so no intermediate
+ * candidate or rule lists are built.</p>
+ * <p>In parallel mode, text scanning and syntax validation are spread over the common fork-join pool.
+ * Results are merged in the canonical order, so deduplication gives the same rules as the sequential mode.</p>
  */
 public class RuleParser {
     private final TextScanner textScanner;
@@ -25,6 +31,7 @@ public class RuleParser {
     private final SyntaxValidator syntaxValidator;
     private final SemanticValidator semanticValidator;
     private final RuleDeduplicator ruleDeduplicator;
+    private boolean isParallel;
 
     public RuleParser() {
         this.textScanner = new TextScanner();
@@ -32,6 +39,25 @@ public class RuleParser {
         this.syntaxValidator = new SyntaxValidator();
         this.semanticValidator = new SemanticValidator();
         this.ruleDeduplicator = new RuleDeduplicator();
+        this.isParallel = false;
+    }
+
+    /**
+     * Enables or disables the parallel parse mode. Only worth it for large maps with many rule lines.
+     *
+     * @param isParallel {@code true} to scan and validate in parallel
+     */
+    public void setParallel(boolean isParallel) {
+        this.isParallel = isParallel;
+    }
+
+    /**
+     * Returns whether the parallel parse mode is enabled.
+     *
+     * @return {@code true} if scanning and validation run in parallel
+     */
+    public boolean isParallel() {
+        return isParallel;
     }
 
     /**
@@ -41,9 +67,35 @@ public class RuleParser {
      * @return a deduplicated, semantically valid list of {@link Rule} objects
      */
     public List<Rule> parseRules(LevelMap levelMap) {
-        List<List<List<Entity>>> textTiles = textScanner.scanText(levelMap);
+        if (isParallel) {
+            return parseRulesParallel(levelMap);
+        }
+
+        List<Rule> rules = new ArrayList<>();
+        Set<String> seenSignatures = new HashSet<>();
+        Consumer<Rule> ruleConsumer = rule -> {
+            if (semanticValidator.isSemanticallyValid(rule) && ruleDeduplicator.checkSeen(rule, seenSignatures)) {
+                rules.add(rule);
+            }
+        };
+        Consumer<List<Entity>> sentenceConsumer = sentence -> syntaxValidator.validate(sentence, ruleConsumer);
+
+        for (List<List<Entity>> line : textScanner.scanText(levelMap)) {
+            permutationGenerator.generate(line, sentenceConsumer);
+        }
+        return rules;
+    }
+
+    /**
+     * Runs the parsing pipeline with text scanning and syntax validation fanned out in parallel.
+     *
+     * @param levelMap the level map to parse rules from
+     * @return a deduplicated, semantically valid list of {@link Rule} objects
+     */
+    private List<Rule> parseRulesParallel(LevelMap levelMap) {
+        List<List<List<Entity>>> textTiles = textScanner.scanTextParallel(levelMap);
         List<List<Entity>> ruleCandidates = permutationGenerator.generate(textTiles);
-        List<Rule> rules = syntaxValidator.validate(ruleCandidates);
+        List<Rule> rules = syntaxValidator.validateParallel(ruleCandidates);
         List<Rule> validRules = semanticValidator.validate(rules);
         return ruleDeduplicator.deduplicate(validRules);
     }
@@ -24,7 +24,13 @@ public class SemanticValidator {
                 .toList();
     }
 
-    private boolean isSemanticallyValid(Rule rule) {
+    /**
+     * Returns whether a single syntactically valid rule is also semantically valid.
+     *
+     * @param rule the rule to check
+     * @return {@code true} if the verb accepts the kind of effect the rule has
+     */
+    public boolean isSemanticallyValid(Rule rule) {
         if(!rule.getVerb().acceptsNoun() && rule.getEffect() instanceof NounType) {
             return false;
         }
@@ -12,6 +12,7 @@ import model.rule.Rule;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Validates the syntax of rule candidates using a finite state machine.
@@ -31,7 +32,7 @@ public class SyntaxValidator {
     }
 
     private static class StateMachineContext {
-        private final List<Rule> rules = new ArrayList<>();
+        private final Consumer<Rule> ruleConsumer;
         private final List<Entity> subjects = new ArrayList<>();
         private final List<Condition> conditions = new ArrayList<>();
         private Entity verb = null;
@@ -41,8 +42,9 @@ public class SyntaxValidator {
         private int tokenIdx = 0;
         private State state = State.START;
 
-        public StateMachineContext(List<Entity> sentence) {
+        public StateMachineContext(List<Entity> sentence, Consumer<Rule> ruleConsumer) {
             this.sentence = sentence;
+            this.ruleConsumer = ruleConsumer;
         }
 
         boolean hasMoreTokens() {
@@ -65,7 +67,7 @@ public class SyntaxValidator {
             for (Entity subject : subjects) {
                 for (Entity effect : effects) {
                     Rule newRule = new Rule(subject, verb, effect, new ArrayList<>(conditions));
-                    rules.add(newRule);
+                    ruleConsumer.accept(newRule);
                 }
             }
         }
@@ -112,13 +114,41 @@ public class SyntaxValidator {
     public List<Rule> validate(List<List<Entity>> ruleCandidates) {
         List<Rule> allRules = new ArrayList<>();
         for (List<Entity> sentence : ruleCandidates) {
-            StateMachineContext context = new StateMachineContext(sentence);
-            runStateMachine(context);
-            allRules.addAll(context.rules);
+            allRules.addAll(validateSentence(sentence));
         }
         return allRules;
     }
 
+    /**
+     * Same as {@link #validate(List)}, but validates the candidate sentences in parallel.
+     * The rules are returned in the same order as the sequential validation.
+     *
+     * @param ruleCandidates list of entity sequences to validate
+     * @return list of syntactically valid {@link Rule} objects
+     */
+    public List<Rule> validateParallel(List<List<Entity>> ruleCandidates) {
+        return ruleCandidates.parallelStream()
+                .flatMap(sentence -> validateSentence(sentence).stream())
+                .toList();
+    }
+
+    /**
+     * Validates a single candidate sentence and hands every rule to the consumer as soon as the state machine
+     * completes it, without collecting them.
+     *
+     * @param sentence     the entity sequence to validate
+     * @param ruleConsumer receives every syntactically valid {@link Rule}, in sentence order
+     */
+    public void validate(List<Entity> sentence, Consumer<Rule> ruleConsumer) {
+        runStateMachine(new StateMachineContext(sentence, ruleConsumer));
+    }
+
+    private List<Rule> validateSentence(List<Entity> sentence) {
+        List<Rule> rules = new ArrayList<>();
+        validate(sentence, rules::add);
+        return rules;
+    }
+
     private void runStateMachine(StateMachineContext context) {
         while (context.hasMoreTokens()) {
             Entity token = context.currentToken();
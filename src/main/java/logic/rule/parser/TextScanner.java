@@ -6,6 +6,7 @@ import model.map.LevelMap;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.IntStream;
 
 /**
  * Scans a LevelMap for sequences of word entities arranged in lines (horizontally or vertically) which have a chance to be a rule.
@@ -33,6 +34,32 @@ public class TextScanner {
         return results;
     }
 
+    /**
+     * Same as {@link #scanText(LevelMap)}, but scans every row and column in parallel.
+     * The groups are merged back in the canonical order: all rows top to bottom, then all columns left to right.
+     *
+     * @param levelMap the level map to scan
+     * @return list of word-tile groups, in the same order as {@link #scanText(LevelMap)}
+     */
+    public List<List<List<Entity>>> scanTextParallel(LevelMap levelMap) {
+        int width = levelMap.getWidth();
+        int height = levelMap.getHeight();
+
+        return IntStream.range(0, height + width)
+                .parallel()
+                .mapToObj(lineIdx -> {
+                    List<List<List<Entity>>> lineResults = new ArrayList<>();
+                    if (lineIdx < height) {
+                        scanLine(levelMap, lineIdx, width, true, lineResults);
+                    } else {
+                        scanLine(levelMap, lineIdx - height, height, false, lineResults);
+                    }
+                    return lineResults;
+                })
+                .flatMap(List::stream)
+                .toList();
+    }
+
     /**
      * Scans one row or column for contiguous word sequences and adds qualifying sequences to results.
      *
@@ -6,4 +6,14 @@ package model.action;
 public interface Action {
     void execute();
     void undo();
-}
\ No newline at end of file
+
+    /**
+     * Returns whether this action creates, destroys, moves or transforms a text entity.
+     * Rules only need to be parsed again after an action that affects text.
+     *
+     * @return {@code true} if a text entity is affected by this action
+     */
+    default boolean affectsText() {
+        return false;
+    }
+}
@@ -1,53 +1,524 @@
 package model.action;
 
-import java.util.Stack;
+import model.rule.Rule;
+import model.rule.Ruleset;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
- * Manages a stack of actions to enable undo and redo functionality.
+ * Manages the undo and redo history of a level.
+ * <p>Recorded turns are delta-encoded into a compact {@link UndoLog} instead of keeping their action objects, and
+ * arranged in an {@link UndoTree}: playing a new turn after an undo starts a new branch, so the undone line of play is
+ * kept and can be reached again with {@link #seekState(long)}. Undo, redo and {@link #seek(int)} follow the line of
+ * play last taken. When the history grows past its memory cap, the branches off the current line are dropped first,
+ * then the oldest turns.</p>
+ * <p>Every state is identified by a hash of the entities on the map. A turn that leads to the same state as a turn
+ * already played from the same position is not stored twice, and identical states share one checkpoint.</p>
+ * <p>Checkpoints of the whole map are stored every {@link #DEFAULT_CHECKPOINT_TURNS} turns or
+ * {@link #DEFAULT_CHECKPOINT_RECORDS} changes along each branch, so any state of the history is reached by restoring
+ * a nearby checkpoint and replaying a bounded number of turns.</p>
+ * <p>Seeking can also pin checkpoints of chosen states, such as the turns around the shown one of the undo timeline.
+ * Pinned checkpoints are a cache: they count towards the memory cap, but the least recently used ones are dropped
+ * before any turn or branch, and they never cause turns to be dropped themselves.</p>
+ * <p>With {@link #enableSpill(Path)}, the oldest turns are spilled to memory-mapped scratch files instead of being
+ * dropped, which keeps the heap bounded while every turn can still be undone.</p>
  */
 public class ActionStack {
+    /** Default memory cap of the history, in bytes. */
+    public static final long DEFAULT_MEMORY_CAP_BYTES = 16L * 1024 * 1024;
+    /** Default number of turns between two checkpoints. */
+    public static final int DEFAULT_CHECKPOINT_TURNS = 64;
+    /** Default number of recorded changes between two checkpoints. */
+    public static final int DEFAULT_CHECKPOINT_RECORDS = 4096;
 
-    private final Stack<CompositeAction> undoStack;
-    private final Stack<CompositeAction> redoStack;
+    private final UndoLog undoLog;
+    private final UndoTree undoTree;
+    private long memoryCapBytes;
+    private int checkpointTurnInterval;
+    private int checkpointRecordInterval;
+    private int lastReplayCount;
+    private final Map<Integer, PinnedCheckpoint> pinnedCheckpoints = new LinkedHashMap<>(16, 0.75f, true);
+    private long pinnedBytes;
 
     public ActionStack() {
-        undoStack = new Stack<>();
-        redoStack = new Stack<>();
+        undoLog = new UndoLog();
+        undoTree = new UndoTree();
+        memoryCapBytes = DEFAULT_MEMORY_CAP_BYTES;
+        checkpointTurnInterval = DEFAULT_CHECKPOINT_TURNS;
+        checkpointRecordInterval = DEFAULT_CHECKPOINT_RECORDS;
     }
 
     /**
-     * Pushes a new composite action onto the undo stack and clears the redo stack.
+     * Records an executed composite action as a new turn played from the current state.
+     * The rules after the turn are not recorded, so they have to be parsed again when the turn is undone or redone.
      *
      * @param compositeAction the action to record
      */
     public void newAction(CompositeAction compositeAction) {
-        undoStack.push(compositeAction);
-        redoStack.clear();
+        newAction(compositeAction, null);
     }
 
-    /** Pops the latest action from the undo stack, undoes it, and pushes it onto the redo stack. */
-    public void undo() {
-        if(undoStack.isEmpty()) {
-            return;
+    /**
+     * Records an executed composite action as a new turn played from the current state, along with the rules in
+     * effect after it. If turns were undone, they stay in the history as another branch. If the same state was
+     * already reached by a turn played from the current state, that turn is reused instead.
+     *
+     * @param compositeAction the action to record
+     * @param ruleset         the ruleset after the turn, or {@code null} if unknown
+     */
+    public void newAction(CompositeAction compositeAction, Ruleset ruleset) {
+        int parent = undoTree.getCurrent();
+        undoLog.appendTurn(compositeAction, ruleset);
+        int turn = undoLog.getTurnCount() - 1;
+        long delta = undoLog.getStateHashDelta(turn);
+        if (!undoTree.isRootHashKnown()) {
+            undoTree.setRootHash(undoLog.computeStateHash() ^ delta);
         }
-        CompositeAction undoAction = undoStack.pop();
-        undoAction.undo();
-        redoStack.push(undoAction);
+        long hash = undoTree.getHash(parent) ^ delta;
+
+        int node = undoTree.findChild(parent, hash);
+        if (node != UndoTree.NONE) {
+            undoLog.removeLastTurn();
+            if (ruleset != null) {
+                undoLog.setRules(node, ruleset);
+            }
+        } else {
+            node = undoTree.addNode(parent, hash, undoLog.getRecordCount(turn));
+            if (undoLog.hasLevelMap() && undoTree.isCheckpointDue(node, checkpointTurnInterval, checkpointRecordInterval)) {
+                int checkpoint = undoTree.findSharedCheckpoint(node);
+                undoTree.setCheckpoint(node, checkpoint != UndoTree.NONE ? checkpoint : undoLog.takeCheckpoint());
+            }
+        }
+        undoTree.setCurrent(node);
+        undoTree.updateLineEnd();
+        enforceMemoryCap();
     }
 
-    /** Pops the latest action from the redo stack, re-executes it, and pushes it onto the undo stack. */
-    public void redo() {
-        if(redoStack.isEmpty()) {
-            return;
+    /**
+     * Records the rules in effect at the current turn, such as the rules parsed when the level starts.
+     *
+     * @param ruleset the current ruleset
+     */
+    public void setCurrentRules(Ruleset ruleset) {
+        undoLog.setRules(undoTree.getCurrent(), ruleset);
+    }
+
+    /**
+     * Returns the rules that were in effect at the current turn, so they can be restored after an undo, redo or seek
+     * without parsing the map again.
+     *
+     * @return an unmodifiable rule list, or {@code null} if the rules of the current turn were not recorded
+     */
+    public List<Rule> getCurrentRules() {
+        return undoLog.getRules(undoTree.getCurrent());
+    }
+
+    /**
+     * Undoes the latest applied turn.
+     *
+     * @return {@code true} if the undone turn affected a text entity, {@code false} if it did not or there was nothing to undo
+     */
+    public boolean undo() {
+        int node = undoTree.getCurrent();
+        if (node == 0) {
+            return false;
+        }
+        undoLog.undoTurn(node - 1);
+        undoTree.setCurrent(undoTree.getParent(node));
+        return undoLog.affectsText(node - 1);
+    }
+
+    /**
+     * Re-executes the latest undone turn of the current line of play.
+     *
+     * @return {@code true} if the redone turn affected a text entity, {@code false} if it did not or there was nothing to redo
+     */
+    public boolean redo() {
+        int node = undoTree.getLastChild(undoTree.getCurrent());
+        if (node == UndoTree.NONE) {
+            return false;
+        }
+        undoLog.redoTurn(node - 1);
+        undoTree.setCurrent(node);
+        return undoLog.affectsText(node - 1);
+    }
+
+    /**
+     * Moves along the current line of play until exactly the given number of turns is applied.
+     * <p>If a checkpoint is closer to the target than the current turn, the map is restored from it first,
+     * so at most about {@link #DEFAULT_CHECKPOINT_TURNS} turns are replayed whatever the distance.</p>
+     *
+     * @param turn the number of applied turns to reach, between {@code 0} and {@link #size()}
+     * @return {@code true} if a turn between the current and the target one affected a text entity
+     * @throws IndexOutOfBoundsException if the turn is outside the history
+     */
+    public boolean seek(int turn) {
+        if (turn < 0 || turn > size()) {
+            throw new IndexOutOfBoundsException("Turn " + turn + " is outside the history of " + size() + " turns");
+        }
+        int current = undoTree.getCurrent();
+        int lineNode = turn <= undoTree.getDepth(current) ? current : undoTree.getLineEnd();
+        return moveTo(undoTree.getAncestor(lineNode, turn));
+    }
+
+    /**
+     * Moves to a previously visited state, whichever branch of the history it is on.
+     * The branch of that state becomes the current line of play.
+     *
+     * @param stateHash the hash of the state, as returned by {@link #getStateHash()}
+     * @return {@code true} if a turn on the way to the state affected a text entity
+     * @throws IllegalArgumentException if no recorded state has the given hash
+     */
+    public boolean seekState(long stateHash) {
+        int node = undoTree.isRootHashKnown() ? undoTree.findNode(stateHash) : UndoTree.NONE;
+        if (node == UndoTree.NONE) {
+            throw new IllegalArgumentException("No recorded state has the hash " + Long.toHexString(stateHash));
+        }
+        return moveTo(node);
+    }
+
+    /**
+     * Returns whether a state with the given hash is recorded in the history.
+     *
+     * @param stateHash the hash of the state
+     * @return {@code true} if {@link #seekState(long)} can reach it
+     */
+    public boolean hasState(long stateHash) {
+        return undoTree.isRootHashKnown() && undoTree.findNode(stateHash) != UndoTree.NONE;
+    }
+
+    /**
+     * Returns the hash of the current state, which identifies it among every state of the history.
+     *
+     * @return the Zobrist hash of the current state
+     */
+    public long getStateHash() {
+        return undoTree.isRootHashKnown() ? undoTree.getHash(undoTree.getCurrent()) : undoLog.computeStateHash();
+    }
+
+    /**
+     * Moves from the current node to the given one, either through their common ancestor or from the nearest
+     * checkpoint above the target if that replays fewer turns.
+     *
+     * @param target the node to reach
+     * @return {@code true} if a turn between the current and the target node affected a text entity
+     */
+    private boolean moveTo(int target) {
+        int current = undoTree.getCurrent();
+        int ancestor = undoTree.getCommonAncestor(current, target);
+        boolean isTextChanged = false;
+        for (int node = current; node != ancestor; node = undoTree.getParent(node)) {
+            isTextChanged |= undoLog.affectsText(node - 1);
+        }
+        for (int node = target; node != ancestor; node = undoTree.getParent(node)) {
+            isTextChanged |= undoLog.affectsText(node - 1);
+        }
+
+        int distance = undoTree.getDepth(current) + undoTree.getDepth(target) - 2 * undoTree.getDepth(ancestor);
+        int start = target;
+        while (start != UndoTree.NONE && !hasCheckpoint(start)
+                && undoTree.getDepth(target) - undoTree.getDepth(start) < distance) {
+            start = undoTree.getParent(start);
+        }
+        if (start != UndoTree.NONE && hasCheckpoint(start)
+                && undoTree.getDepth(target) - undoTree.getDepth(start) < distance) {
+            restoreCheckpoint(start);
+            lastReplayCount = 0;
+        } else {
+            lastReplayCount = undoTree.getDepth(current) - undoTree.getDepth(ancestor);
+            while (current != ancestor) {
+                undoLog.undoTurn(current - 1);
+                current = undoTree.getParent(current);
+            }
+            start = ancestor;
+        }
+
+        int[] path = new int[undoTree.getDepth(target) - undoTree.getDepth(start)];
+        for (int node = target, index = path.length - 1; index >= 0; node = undoTree.getParent(node), index--) {
+            path[index] = node;
+        }
+        for (int node : path) {
+            undoLog.redoTurn(node - 1);
+        }
+        lastReplayCount += path.length;
+        undoTree.setCurrent(target);
+        undoTree.updateLineEnd();
+        return isTextChanged;
+    }
+
+    /**
+     * Returns the number of turns undone or redone by the latest seek, not counting a restored checkpoint.
+     *
+     * @return the replay cost of the latest seek
+     */
+    int getLastReplayCount() {
+        return lastReplayCount;
+    }
+
+    /**
+     * Pins a checkpoint of the current state if it has none, so later seeks to it or to the turns after it
+     * replay fewer turns. To stay within the memory cap, the least recently used pinned checkpoints are dropped,
+     * possibly including the new one, but the turns and branches of the history are never touched.
+     *
+     * @return {@code true} if a checkpoint was pinned and kept
+     */
+    boolean pinCheckpoint() {
+        int node = undoTree.getCurrent();
+        if (!undoLog.hasLevelMap() || hasCheckpoint(node)) {
+            return false;
+        }
+        PinnedCheckpoint checkpoint = undoLog.pinCheckpoint();
+        pinnedCheckpoints.put(node, checkpoint);
+        pinnedBytes += checkpoint.getMemoryUsage();
+        evictPinnedCheckpoints();
+        return pinnedCheckpoints.containsKey(node);
+    }
+
+    /**
+     * Returns the number of pinned checkpoints currently kept.
+     *
+     * @return the pinned checkpoint count
+     */
+    int getPinnedCheckpointCount() {
+        return pinnedCheckpoints.size();
+    }
+
+    private boolean hasCheckpoint(int node) {
+        return undoTree.getCheckpoint(node) != UndoTree.NONE || pinnedCheckpoints.containsKey(node);
+    }
+
+    /**
+     * Restores the checkpoint of the given node, preferring the one of the log over a pinned one.
+     *
+     * @param node a node with a checkpoint
+     */
+    private void restoreCheckpoint(int node) {
+        int checkpoint = undoTree.getCheckpoint(node);
+        if (checkpoint != UndoTree.NONE) {
+            undoLog.restoreCheckpoint(checkpoint);
+        } else {
+            undoLog.restoreCheckpoint(pinnedCheckpoints.get(node));
         }
-        CompositeAction redoAction = redoStack.pop();
-        redoAction.execute();
-        undoStack.push(redoAction);
     }
 
-    /** Clears both the undo and redo stacks. */
+    /** Drops the least recently used pinned checkpoints until the history fits in its memory cap or none is left. */
+    private void evictPinnedCheckpoints() {
+        Iterator<PinnedCheckpoint> iterator = pinnedCheckpoints.values().iterator();
+        while (getMemoryUsage() > memoryCapBytes && iterator.hasNext()) {
+            pinnedBytes -= iterator.next().getMemoryUsage();
+            iterator.remove();
+        }
+    }
+
+    /** Drops every pinned checkpoint, such as when the nodes they belong to are about to be renumbered. */
+    private void clearPinnedCheckpoints() {
+        pinnedCheckpoints.clear();
+        pinnedBytes = 0;
+    }
+
+    /**
+     * Returns the number of turns currently applied, which is the position in the current line of play.
+     *
+     * @return the number of turns that can be undone
+     */
+    public int getCursor() {
+        return undoTree.getDepth(undoTree.getCurrent());
+    }
+
+    /**
+     * Sets how often a checkpoint of the whole map is stored. A checkpoint is stored after a turn once either
+     * interval is reached since the previous one on its branch; this only affects turns recorded afterwards.
+     *
+     * @param turnInterval   the number of turns between checkpoints
+     * @param recordInterval the number of recorded changes between checkpoints
+     */
+    public void setCheckpointInterval(int turnInterval, int recordInterval) {
+        this.checkpointTurnInterval = turnInterval;
+        this.checkpointRecordInterval = recordInterval;
+    }
+
+    /**
+     * Returns whether there is a turn to undo.
+     *
+     * @return {@code true} if {@link #undo()} would change the map
+     */
+    public boolean canUndo() {
+        return undoTree.getCurrent() != 0;
+    }
+
+    /**
+     * Returns whether there is a turn to redo on the current line of play.
+     *
+     * @return {@code true} if {@link #redo()} would change the map
+     */
+    public boolean canRedo() {
+        return undoTree.getLastChild(undoTree.getCurrent()) != UndoTree.NONE;
+    }
+
+    /**
+     * Returns the number of turns of the current line of play, both undoable and redoable.
+     *
+     * @return the size of the history along the current line
+     */
+    public int size() {
+        return undoTree.getDepth(undoTree.getLineEnd());
+    }
+
+    /**
+     * Returns the number of states recorded in every branch of the history, including the initial one.
+     *
+     * @return the number of distinct recorded states, counting a state once per branch it was reached on
+     */
+    public int getStateCount() {
+        return undoTree.getNodeCount();
+    }
+
+    /**
+     * Returns the estimated heap memory retained by the history, including pinned checkpoints but not spilled turns.
+     *
+     * @return the estimated memory usage in bytes
+     */
+    public long getMemoryUsage() {
+        return undoLog.getMemoryUsage() + (long) undoTree.getNodeCount() * UndoTree.NODE_BYTES + pinnedBytes;
+    }
+
+    /**
+     * Sets the memory cap of the history. As soon as the history exceeds it, the branches off the current line of
+     * play are dropped, then the oldest undoable turns until a quarter of the cap is free again, but the latest turn
+     * is always kept.
+     *
+     * @param memoryCapBytes the maximum estimated memory usage in bytes
+     */
+    public void setMemoryCap(long memoryCapBytes) {
+        this.memoryCapBytes = memoryCapBytes;
+        enforceMemoryCap();
+    }
+
+    /**
+     * Spills the oldest turns to scratch files in the given directory whenever the history exceeds its memory cap,
+     * instead of dropping them. Spilled turns are read back from the files when they are undone or redone.
+     *
+     * @param directory the directory to create the scratch files in
+     * @throws IOException if a scratch file cannot be created
+     */
+    public void enableSpill(Path directory) throws IOException {
+        undoLog.openSpillFile(directory);
+        enforceMemoryCap();
+    }
+
+    /**
+     * Moves the spilled turns back to the heap and closes the scratch files.
+     * The oldest turns are dropped again if the history no longer fits in its memory cap.
+     */
+    public void disableSpill() {
+        undoLog.closeSpillFile();
+        enforceMemoryCap();
+    }
+
+    /** Clears the whole history. */
     public void clear() {
-        undoStack.clear();
-        redoStack.clear();
+        undoLog.clear();
+        undoTree.clear();
+        clearPinnedCheckpoints();
+    }
+
+    /**
+     * Drops pinned checkpoints first. Then spills the oldest turns down to half the memory cap if scratch files are
+     * open, keeping the latest turns on the heap, or otherwise drops the branches off the current line of play, then the oldest undoable turns down to
+     * three quarters of the memory cap. Since dropping turns rewrites the whole history, the slack left below the cap
+     * spreads that cost over the many turns it takes to reach the cap again.
+     */
+    private void enforceMemoryCap() {
+        evictPinnedCheckpoints();
+        if (getMemoryUsage() <= memoryCapBytes) {
+            return;
+        }
+        if (undoLog.canSpill()) {
+            // The turns since about the latest checkpoint stay on the heap, however much unspillable data there is
+            undoLog.spill((memoryCapBytes - (long) undoTree.getNodeCount() * UndoTree.NODE_BYTES) / 2,
+                    checkpointTurnInterval);
+            return;
+        }
+        if (size() + 1 < undoTree.getNodeCount()) {
+            int[] line = new int[size() + 1];
+            for (int node = undoTree.getLineEnd(), index = line.length - 1; index >= 0; node = undoTree.getParent(node), index--) {
+                line[index] = node;
+            }
+            retain(line);
+            if (getMemoryUsage() <= memoryCapBytes) {
+                return;
+            }
+        }
+
+        // The tree is a single line now, so each node n > 0 is reached by turn n - 1
+        int nodeCount = undoTree.getNodeCount();
+        int[] lastUse = new int[undoLog.getCheckpointCount()];
+        for (int node = 0; node < nodeCount; node++) {
+            if (undoTree.getCheckpoint(node) != UndoTree.NONE) {
+                lastUse[undoTree.getCheckpoint(node)] = node;
+            }
+        }
+        // Drop down to the low-water mark, so the next turns fit without rewriting the history again
+        long excess = getMemoryUsage() - (memoryCapBytes - memoryCapBytes / 4);
+        int dropCount = 0;
+        int maxDropCount = Math.min(getCursor(), nodeCount - 2);
+        while (dropCount < maxDropCount && excess > 0) {
+            excess -= undoLog.getTurnBytes(dropCount) + UndoTree.NODE_BYTES;
+            int checkpoint = undoTree.getCheckpoint(dropCount);
+            if (checkpoint != UndoTree.NONE && lastUse[checkpoint] == dropCount) {
+                excess -= undoLog.getCheckpointBytes(checkpoint);
+            }
+            dropCount++;
+        }
+        if (dropCount > 0) {
+            dropOldestTurns(dropCount);
+        }
+    }
+
+    /**
+     * Drops the given number of oldest turns of a history that is a single line, along with the checkpoints only
+     * they use, shifting everything in place instead of rebuilding the history. Pinned checkpoints are already
+     * evicted by then, since they go before any turn.
+     *
+     * @param count the number of turns to drop, fewer than the node count
+     */
+    private void dropOldestTurns(int count) {
+        int keptCheckpoint = undoLog.getCheckpointCount();
+        for (int node = count; node < undoTree.getNodeCount(); node++) {
+            int checkpoint = undoTree.getCheckpoint(node);
+            if (checkpoint != UndoTree.NONE) {
+                keptCheckpoint = Math.min(keptCheckpoint, checkpoint);
+            }
+        }
+        clearPinnedCheckpoints();
+        undoLog.dropOldest(count, keptCheckpoint);
+        undoTree.dropOldest(count, keptCheckpoint);
+    }
+
+    /**
+     * Keeps only the given path of the undo tree, whose first node becomes the start of the history.
+     *
+     * @param path the nodes to keep, each one the parent of the next
+     */
+    private void retain(int[] path) {
+        clearPinnedCheckpoints();
+        int[] keptTurns = new int[path.length - 1];
+        boolean[] keptCheckpoints = new boolean[undoLog.getCheckpointCount()];
+        for (int index = 0; index < path.length; index++) {
+            if (index > 0) {
+                keptTurns[index - 1] = path[index] - 1;
+            }
+            int checkpoint = undoTree.getCheckpoint(path[index]);
+            if (checkpoint != UndoTree.NONE) {
+                keptCheckpoints[checkpoint] = true;
+            }
+        }
+        int[] checkpointRemap = undoLog.retain(keptTurns, path[0], keptCheckpoints);
+        undoTree.retainPath(path, checkpointRemap);
     }
 }
@@ -1,10 +1,15 @@
 package model.action;
 
+import model.map.LevelMap;
+import model.map.MapBatch;
+
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * A composite action that aggregates multiple actions into one.
+ * <p>Executing or undoing it groups the map changes of consecutive moves, creations, destructions and
+ * transformations into one {@link MapBatch}, so the level map is updated once for all of them.</p>
  */
 public class CompositeAction implements Action {
 
@@ -52,15 +57,115 @@ public class CompositeAction implements Action {
 
     @Override
     public void execute() {
+        MapBatch batch = null;
         for (Action action : actions) {
-            action.execute();
+            batch = run(action, batch, false);
+        }
+        if (batch != null) {
+            batch.apply();
         }
     }
 
     @Override
     public void undo() {
+        MapBatch batch = null;
         for (int i = actions.size() - 1; i >= 0; i--) {
-            actions.get(i).undo();
+            batch = run(actions.get(i), batch, true);
+        }
+        if (batch != null) {
+            batch.apply();
+        }
+    }
+
+    /**
+     * Executes or undoes a single action, adding its map changes to the pending batch when it can.
+     * Rotations only change a direction and run right away; any other action may read or change the map directly,
+     * so the pending batch is applied before it runs.
+     *
+     * @param action the action to run
+     * @param batch  the pending batch, or {@code null} if there is none yet
+     * @param isUndo whether the action is undone rather than executed
+     * @return the pending batch after the action
+     */
+    private static MapBatch run(Action action, MapBatch batch, boolean isUndo) {
+        switch (action) {
+            case MoveAction move -> {
+                batch = batchFor(batch, move.getLevelMap());
+                if (isUndo) {
+                    move.undo(batch);
+                } else {
+                    move.execute(batch);
+                }
+            }
+            case CreateAction create -> {
+                batch = batchFor(batch, create.getLevelMap());
+                if (isUndo) {
+                    create.undo(batch);
+                } else {
+                    create.execute(batch);
+                }
+            }
+            case DestroyAction destroy -> {
+                batch = batchFor(batch, destroy.getLevelMap());
+                if (isUndo) {
+                    destroy.undo(batch);
+                } else {
+                    destroy.execute(batch);
+                }
+            }
+            case TransformAction transform -> {
+                batch = batchFor(batch, transform.getLevelMap());
+                if (isUndo) {
+                    transform.undo(batch);
+                } else {
+                    transform.execute(batch);
+                }
+            }
+            case RotateAction rotate -> {
+                if (isUndo) {
+                    rotate.undo();
+                } else {
+                    rotate.execute();
+                }
+            }
+            default -> {
+                if (batch != null) {
+                    batch.apply();
+                }
+                if (isUndo) {
+                    action.undo();
+                } else {
+                    action.execute();
+                }
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Returns a batch of changes to the given map, applying the pending batch first if it belongs to another map.
+     *
+     * @param batch    the pending batch, or {@code null}
+     * @param levelMap the map of the next change
+     * @return the batch to add the change to
+     */
+    private static MapBatch batchFor(MapBatch batch, LevelMap levelMap) {
+        if (batch != null && batch.getLevelMap() == levelMap) {
+            return batch;
+        }
+        if (batch != null) {
+            batch.apply();
+        }
+        return new MapBatch(levelMap);
+    }
+
+    @Override
+    public boolean affectsText() {
+        for (Action action : actions) {
+            if (action.affectsText()) {
+                return true;
+            }
         }
+        return false;
     }
 }
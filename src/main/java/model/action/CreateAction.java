@@ -4,6 +4,7 @@ import model.entity.Direction;
 import model.entity.Entity;
 import model.entity.EntityType;
 import model.map.LevelMap;
+import model.map.MapBatch;
 
 /**
  * Action to create a new entity at a specified position on the level map.
@@ -53,4 +54,40 @@ public class CreateAction implements Action {
     public void undo() {
         levelMap.removeEntity(entity);
     }
+
+    /**
+     * Executes this creation as part of the given batch.
+     *
+     * @param batch the pending changes of the level map
+     */
+    void execute(MapBatch batch) {
+        batch.setPosition(entity, posX, posY);
+    }
+
+    /**
+     * Undoes this creation as part of the given batch.
+     *
+     * @param batch the pending changes of the level map
+     */
+    void undo(MapBatch batch) {
+        batch.removeEntity(entity);
+    }
+
+    LevelMap getLevelMap() {
+        return levelMap;
+    }
+
+    @Override
+    public boolean affectsText() {
+        return entity.getType().isText();
+    }
+
+    /**
+     * Records this executed creation in the given undo log.
+     *
+     * @param undoLog the log to append to
+     */
+    void encode(UndoLog undoLog) {
+        undoLog.appendCreate(levelMap, entity, posX, posY);
+    }
 }
@@ -2,6 +2,7 @@ package model.action;
 
 import model.entity.Entity;
 import model.map.LevelMap;
+import model.map.MapBatch;
 import model.particle.Particle;
 import model.particle.ParticleType;
 import state.PlayingState;
@@ -48,6 +49,42 @@ public class DestroyAction implements Action {
         levelMap.setPosition(entity, posX, posY);
     }
 
+    /**
+     * Executes this destruction as part of the given batch.
+     *
+     * @param batch the pending changes of the level map
+     */
+    void execute(MapBatch batch) {
+        batch.removeEntity(entity);
+    }
+
+    /**
+     * Undoes this destruction as part of the given batch.
+     *
+     * @param batch the pending changes of the level map
+     */
+    void undo(MapBatch batch) {
+        batch.setPosition(entity, posX, posY);
+    }
+
+    LevelMap getLevelMap() {
+        return levelMap;
+    }
+
+    @Override
+    public boolean affectsText() {
+        return entity.getType().isText();
+    }
+
+    /**
+     * Records this executed destruction in the given undo log.
+     *
+     * @param undoLog the log to append to
+     */
+    void encode(UndoLog undoLog) {
+        undoLog.appendDestroy(levelMap, entity, posX, posY);
+    }
+
     /**
      * Spawns destruction particle effects at the entity's last position.
      *
@@ -3,6 +3,7 @@ package model.action;
 import model.entity.Direction;
 import model.entity.Entity;
 import model.map.LevelMap;
+import model.map.MapBatch;
 import model.particle.Particle;
 import model.particle.ParticleType;
 import state.PlayingState;
@@ -67,6 +68,47 @@ public class MoveAction implements Action {
         entity.setDirection(startDirection);
     }
 
+    /**
+     * Executes this move as part of the given batch, starting from the position the entity has in the batch.
+     *
+     * @param batch the pending changes of the level map
+     */
+    void execute(MapBatch batch) {
+        startX = batch.getX(entity);
+        startY = batch.getY(entity);
+        startDirection = entity.getDirection();
+        batch.setPosition(entity, endX, endY);
+        entity.setDirection(endDirection);
+    }
+
+    /**
+     * Undoes this move as part of the given batch.
+     *
+     * @param batch the pending changes of the level map
+     */
+    void undo(MapBatch batch) {
+        batch.setPosition(entity, startX, startY);
+        entity.setDirection(startDirection);
+    }
+
+    LevelMap getLevelMap() {
+        return levelMap;
+    }
+
+    @Override
+    public boolean affectsText() {
+        return entity.getType().isText();
+    }
+
+    /**
+     * Records this executed move in the given undo log.
+     *
+     * @param undoLog the log to append to
+     */
+    void encode(UndoLog undoLog) {
+        undoLog.appendMove(levelMap, entity, startX, startY, endX, endY, startDirection, endDirection);
+    }
+
     /**
      * Spawns a puff particle effect at the entity's starting position.
      *
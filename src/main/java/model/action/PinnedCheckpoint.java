@@ -0,0 +1,56 @@
+package model.action;
+
+import model.entity.Entity;
+
+/**
+ * A checkpoint of the whole map stored on demand while seeking through the history, such as around the shown turn of
+ * the undo timeline.
+ * <p>Unlike the checkpoints of the {@link UndoLog}, it is never spilled nor renumbered: it refers to the entities
+ * themselves and is simply dropped whenever the history needs room or changes shape.</p>
+ */
+final class PinnedCheckpoint {
+    /** Estimated bytes of a pinned checkpoint besides its entries: the object, its arrays and its cache slot. */
+    private static final int BASE_BYTES = 128;
+
+    private final Entity[] entities;
+    private final int[] cells;
+    private final byte[] directions;
+
+    /**
+     * Creates a checkpoint from already copied data, with the entities of each cell in their order.
+     *
+     * @param entities   every entity of the map
+     * @param cells      the cell of each entity, in the same order
+     * @param directions the direction ordinal of each entity, in the same order
+     */
+    PinnedCheckpoint(Entity[] entities, int[] cells, byte[] directions) {
+        this.entities = entities;
+        this.cells = cells;
+        this.directions = directions;
+    }
+
+    int getEntityCount() {
+        return entities.length;
+    }
+
+    Entity getEntity(int index) {
+        return entities[index];
+    }
+
+    int getCell(int index) {
+        return cells[index];
+    }
+
+    int getDirection(int index) {
+        return directions[index];
+    }
+
+    /**
+     * Returns the estimated heap memory retained by the checkpoint, not counting the entities it refers to.
+     *
+     * @return the estimated memory usage in bytes
+     */
+    long getMemoryUsage() {
+        return BASE_BYTES + (long) entities.length * (2 * Integer.BYTES + 1);
+    }
+}
@@ -33,4 +33,13 @@ public class RotateAction implements Action{
     public void undo() {
         entity.setDirection(startDirection);
     }
+
+    /**
+     * Records this executed rotation in the given undo log.
+     *
+     * @param undoLog the log to append to
+     */
+    void encode(UndoLog undoLog) {
+        undoLog.appendRotate(entity, startDirection, endDirection);
+    }
 }
@@ -0,0 +1,243 @@
+package model.action;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A growable sequence of {@code int}s whose oldest part can be spilled to a memory-mapped scratch file.
+ * <p>The values from index {@code 0} up to the spilled length live in the file, which is mapped in chunks of
+ * {@link #CHUNK_INTS} values the first time one of them is accessed, so the operating system pages them in lazily.
+ * The remaining values live in a heap array. Indices stay the same when values are spilled.</p>
+ */
+class SpillableIntBuffer {
+    /** Number of values per mapped chunk of the scratch file. */
+    static final int CHUNK_INTS = 1 << 18;
+
+    private int[] tail = new int[256];
+    private int tailLength;
+    private int spilledLength;
+
+    private FileChannel channel;
+    private final List<IntBuffer> chunks = new ArrayList<>();
+
+    /**
+     * Opens a scratch file in the given directory that older values can be spilled to.
+     * The file is deleted when it is closed or the program exits.
+     *
+     * @param directory the directory of the scratch file
+     * @throws IOException if the file cannot be created
+     */
+    void openSpillFile(Path directory) throws IOException {
+        closeSpillFile();
+        Path file = Files.createTempFile(directory, "undo", ".bin");
+        file.toFile().deleteOnExit();
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+    }
+
+    /** Moves every spilled value back to the heap and closes the scratch file. */
+    void closeSpillFile() {
+        if (channel == null) {
+            return;
+        }
+        if (spilledLength > 0) {
+            int totalLength = length();
+            int[] values = new int[Math.max(totalLength, 256)];
+            for (int index = 0; index < spilledLength; index++) {
+                values[index] = get(index);
+            }
+            System.arraycopy(tail, 0, values, spilledLength, tailLength);
+            tail = values;
+            tailLength = totalLength;
+            spilledLength = 0;
+        }
+        chunks.clear();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        channel = null;
+    }
+
+    /**
+     * Returns whether a scratch file is open.
+     *
+     * @return {@code true} if values can be spilled
+     */
+    boolean canSpill() {
+        return channel != null;
+    }
+
+    /**
+     * Returns the number of values, spilled or not.
+     *
+     * @return the length of the sequence
+     */
+    int length() {
+        return spilledLength + tailLength;
+    }
+
+    /**
+     * Returns the number of values held in the scratch file.
+     *
+     * @return the spilled length
+     */
+    int getSpilledLength() {
+        return spilledLength;
+    }
+
+    /**
+     * Returns the value at the given index, reading it from the scratch file if it was spilled.
+     *
+     * @param index the index of the value
+     * @return the value
+     */
+    int get(int index) {
+        if (index >= spilledLength) {
+            return tail[index - spilledLength];
+        }
+        return getChunk(index / CHUNK_INTS).get(index % CHUNK_INTS);
+    }
+
+    /**
+     * Replaces the value at the given index, writing it to the scratch file if it was spilled.
+     *
+     * @param index the index of the value
+     * @param value the new value
+     */
+    void set(int index, int value) {
+        if (index >= spilledLength) {
+            tail[index - spilledLength] = value;
+        } else {
+            getChunk(index / CHUNK_INTS).put(index % CHUNK_INTS, value);
+        }
+    }
+
+    /**
+     * Appends a value at the end of the sequence.
+     *
+     * @param value the value to append
+     */
+    void add(int value) {
+        if (tailLength == tail.length) {
+            tail = Arrays.copyOf(tail, tail.length * 2);
+        }
+        tail[tailLength++] = value;
+    }
+
+    /**
+     * Drops every value from the given index on.
+     *
+     * @param newLength the number of values to keep
+     */
+    void truncate(int newLength) {
+        if (newLength >= length()) {
+            return;
+        }
+        if (newLength >= spilledLength) {
+            tailLength = newLength - spilledLength;
+        } else {
+            spilledLength = newLength;
+            tailLength = 0;
+        }
+    }
+
+    /**
+     * Drops the given number of values from the front, shifting the indices of the remaining ones.
+     * Only possible while nothing is spilled.
+     *
+     * @param count the number of values to drop
+     * @throws IllegalStateException if values are spilled
+     */
+    void dropFront(int count) {
+        if (spilledLength > 0) {
+            throw new IllegalStateException("Cannot drop spilled values");
+        }
+        System.arraycopy(tail, count, tail, 0, tailLength - count);
+        tailLength -= count;
+    }
+
+    /**
+     * Copies a range of values to another index, as {@link System#arraycopy} does. Only possible while nothing is
+     * spilled.
+     *
+     * @param from  the index of the first value to copy
+     * @param to    the index to copy it to
+     * @param count the number of values to copy
+     * @throws IllegalStateException if values are spilled
+     */
+    void copyWithin(int from, int to, int count) {
+        if (spilledLength > 0) {
+            throw new IllegalStateException("Cannot move spilled values");
+        }
+        System.arraycopy(tail, from, tail, to, count);
+    }
+
+    /**
+     * Writes the values before the given index to the scratch file, so only the later ones stay on the heap.
+     *
+     * @param newSpilledLength the index up to which values are spilled
+     */
+    void spill(int newSpilledLength) {
+        if (channel == null || newSpilledLength <= spilledLength) {
+            return;
+        }
+        int count = newSpilledLength - spilledLength;
+        for (int index = 0; index < count; index++) {
+            int target = spilledLength + index;
+            getChunk(target / CHUNK_INTS).put(target % CHUNK_INTS, tail[index]);
+        }
+        System.arraycopy(tail, count, tail, 0, tailLength - count);
+        tailLength -= count;
+        spilledLength = newSpilledLength;
+        if (tail.length > 256 && tailLength < tail.length / 4) {
+            tail = Arrays.copyOf(tail, Math.max(tail.length / 2, 256));
+        }
+    }
+
+    /**
+     * Returns the number of bytes the values take on the heap, not counting the spilled ones.
+     *
+     * @return the heap usage in bytes
+     */
+    long getHeapBytes() {
+        return (long) tailLength * Integer.BYTES;
+    }
+
+    /** Removes every value, keeping the scratch file open. */
+    void clear() {
+        tailLength = 0;
+        spilledLength = 0;
+    }
+
+    /**
+     * Returns the mapped chunk with the given index, mapping it first if needed. Mapping past the end
+     * of the scratch file grows it.
+     *
+     * @param chunkIndex the index of the chunk
+     * @return the chunk as an int view of the mapped file
+     */
+    private IntBuffer getChunk(int chunkIndex) {
+        while (chunks.size() <= chunkIndex) {
+            long position = (long) chunks.size() * CHUNK_INTS * Integer.BYTES;
+            try {
+                chunks.add(channel.map(FileChannel.MapMode.READ_WRITE, position, (long) CHUNK_INTS * Integer.BYTES)
+                        .order(ByteOrder.nativeOrder())
+                        .asIntBuffer());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return chunks.get(chunkIndex);
+    }
+}
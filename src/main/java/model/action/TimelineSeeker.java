@@ -0,0 +1,113 @@
+package model.action;
+
+/**
+ * The seek engine behind the undo timeline, which moves an {@link ActionStack} to any turn of its current line of
+ * play while the player scrubs through it.
+ * <p>Every seek is bounded by the checkpoints of the history. On top of that, a seek that still had to replay more
+ * than {@link #DEFAULT_PREFETCH_SPACING} turns pins a checkpoint where it lands, and the spare time of each frame
+ * is spent in {@link #prefetch(long)}, which walks ahead of the shown turn in the scrub direction and pins a
+ * checkpoint every few turns. Scrubbing on through the same stretch then only replays a handful of turns per frame,
+ * however long the history is.</p>
+ * <p>Pinned checkpoints are only a cache of the {@link ActionStack}: seeking and prefetching never drop turns or
+ * branches, so turn numbers stay valid while the player scrubs.</p>
+ */
+public class TimelineSeeker {
+    /** Default number of turns ahead of the shown turn that are prefetched. */
+    public static final int DEFAULT_PREFETCH_RADIUS = 32;
+    /** Default number of turns between two prefetched checkpoints. */
+    public static final int DEFAULT_PREFETCH_SPACING = 4;
+
+    private final ActionStack actionStack;
+    private int prefetchRadius;
+    private int prefetchSpacing;
+
+    private int scrubDirection = 1;
+    private int prefetchedTurn = -1;
+    private int prefetchedDirection;
+    private int prefetchedSize = -1;
+    private long prefetchedHash;
+
+    /**
+     * Creates a seek engine for the given history.
+     *
+     * @param actionStack the history to move through
+     */
+    public TimelineSeeker(ActionStack actionStack) {
+        this.actionStack = actionStack;
+        this.prefetchRadius = DEFAULT_PREFETCH_RADIUS;
+        this.prefetchSpacing = DEFAULT_PREFETCH_SPACING;
+    }
+
+    /**
+     * Moves the history to the given turn of the current line of play, remembering the scrub direction.
+     *
+     * @param turn the number of applied turns to reach, between {@code 0} and {@link ActionStack#size()}
+     * @return {@code true} if a turn between the current and the target one affected a text entity
+     * @throws IndexOutOfBoundsException if the turn is outside the history
+     */
+    public boolean seek(int turn) {
+        int currentTurn = actionStack.getCursor();
+        if (turn != currentTurn) {
+            scrubDirection = Integer.signum(turn - currentTurn);
+        }
+        boolean isTextChanged = actionStack.seek(turn);
+        if (actionStack.getLastReplayCount() > prefetchSpacing) {
+            actionStack.pinCheckpoint();
+        }
+        return isTextChanged;
+    }
+
+    /**
+     * Pins checkpoints ahead of the shown turn in the scrub direction until the time budget runs out,
+     * then comes back to the shown turn. Nothing is done again until the shown turn, the direction or the history
+     * changes.
+     *
+     * @param budgetNanos the time the prefetch may take, in nanoseconds
+     * @return the number of checkpoints pinned
+     */
+    public int prefetch(long budgetNanos) {
+        int shownTurn = actionStack.getCursor();
+        if (shownTurn == prefetchedTurn && scrubDirection == prefetchedDirection && actionStack.size() == prefetchedSize
+                && actionStack.getStateHash() == prefetchedHash) {
+            return 0;
+        }
+        long startTime = System.nanoTime();
+        int storedCount = actionStack.pinCheckpoint() ? 1 : 0;
+        int lastTurn = Math.clamp(shownTurn + (long) scrubDirection * prefetchRadius, 0, actionStack.size());
+        boolean isComplete = true;
+        for (int step = 1; step <= Math.abs(lastTurn - shownTurn); step++) {
+            if (System.nanoTime() - startTime >= budgetNanos) {
+                isComplete = false;
+                break;
+            }
+            if (scrubDirection > 0) {
+                actionStack.redo();
+            } else {
+                actionStack.undo();
+            }
+            if (step % prefetchSpacing == 0 && actionStack.pinCheckpoint()) {
+                storedCount++;
+            }
+        }
+        actionStack.seek(shownTurn);
+        if (isComplete) {
+            prefetchedTurn = shownTurn;
+            prefetchedDirection = scrubDirection;
+            prefetchedSize = actionStack.size();
+            prefetchedHash = actionStack.getStateHash();
+        }
+        return storedCount;
+    }
+
+    /**
+     * Sets how far ahead of the shown turn checkpoints are prefetched, and how far apart.
+     *
+     * @param radius  the number of turns ahead of the shown turn to prefetch
+     * @param spacing the number of turns between two prefetched checkpoints
+     */
+    public void setPrefetch(int radius, int spacing) {
+        this.prefetchRadius = radius;
+        this.prefetchSpacing = spacing;
+        this.prefetchedTurn = -1;
+    }
+}
@@ -3,6 +3,7 @@ package model.action;
 import model.entity.Entity;
 import model.entity.EntityType;
 import model.map.LevelMap;
+import model.map.MapBatch;
 
 /**
  * An action that transforms an entity into a different type at the same position.
@@ -42,4 +43,43 @@ public class TransformAction implements Action {
         levelMap.removeEntity(newEntity);
         levelMap.setPosition(oldEntity, posX, posY);
     }
+
+    /**
+     * Executes this transformation as part of the given batch.
+     *
+     * @param batch the pending changes of the level map
+     */
+    void execute(MapBatch batch) {
+        batch.removeEntity(oldEntity);
+        batch.setPosition(newEntity, posX, posY);
+    }
+
+    /**
+     * Undoes this transformation as part of the given batch.
+     *
+     * @param batch the pending changes of the level map
+     */
+    void undo(MapBatch batch) {
+        batch.removeEntity(newEntity);
+        batch.setPosition(oldEntity, posX, posY);
+    }
+
+    LevelMap getLevelMap() {
+        return levelMap;
+    }
+
+    @Override
+    public boolean affectsText() {
+        return oldEntity.getType().isText() || newEntity.getType().isText();
+    }
+
+    /**
+     * Records this executed transformation in the given undo log, as the old entity being destroyed and the new one created.
+     *
+     * @param undoLog the log to append to
+     */
+    void encode(UndoLog undoLog) {
+        undoLog.appendDestroy(levelMap, oldEntity, posX, posY);
+        undoLog.appendCreate(levelMap, newEntity, posX, posY);
+    }
 }
@@ -0,0 +1,842 @@
+package model.action;
+
+import model.entity.Direction;
+import model.entity.Entity;
+import model.map.LevelMap;
+import model.map.MapBatch;
+import model.rule.Rule;
+import model.rule.Ruleset;
+
+import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compact, delta-encoded storage of the turns recorded by an {@link ActionStack}.
+ * <p>Every change of a turn is packed into a record of four {@code int}s in one growable buffer: the entity handle,
+ * the cell before and after the change, and the directions before and after. A cell is stored as
+ * {@code y * width + x}, {@link #ABSENT} when the entity is not on the map, or {@link #KEEP} when the change does not
+ * move it. Entities are referenced through a handle table, so a turn holds no action objects once it is recorded.
+ * The changes of one entity within a turn, such as a bounce followed by a move, are collapsed into a single net
+ * record.</p>
+ * <p>Turns are stored in the order they were recorded, whichever branch of the {@link UndoTree} they belong to, and
+ * the turn with index {@code n} leads to node {@code n + 1} of the tree. A checkpoint of the whole map can be stored
+ * as one {@code (handle, cell, direction)} triple per entity, in cell order, so jumping far through the history only
+ * replays the turns between the target and a checkpoint.</p>
+ * <p>States are identified by a Zobrist hash: the XOR of one key per entity on the map, derived from its id, cell
+ * and direction. A turn only changes the keys of the entities it touches, so the hash after it is computed from its
+ * records alone with {@link #getStateHashDelta(int)}.</p>
+ * <p>Undoing or redoing a turn collects its changes into one {@link MapBatch}, so the map is updated once per
+ * turn however many records it has.</p>
+ * <p>When scratch files are open, the oldest records and checkpoints can be spilled to them instead of being dropped.
+ * Only the per-turn offsets and the handle table then stay on the heap in full.</p>
+ * <p>Each turn also stores the id of the rules in effect after it. Rule lists are interned by their
+ * {@link Ruleset#getFingerprint() fingerprint}, so turns with the same rules share one list.</p>
+ */
+class UndoLog {
+    /** Cell of an entity that is not on the map, before a creation or after a destruction. */
+    static final int ABSENT = -1;
+    /** Cell of a change that leaves the position untouched, such as a rotation. */
+    static final int KEEP = -2;
+
+    private static final int RECORD_INTS = 4;
+    private static final int HANDLE = 0;
+    private static final int OLD_CELL = 1;
+    private static final int NEW_CELL = 2;
+    private static final int META = 3;
+
+    /** Set in the meta field when the record changes the direction, which is then stored in the lower four bits. */
+    private static final int DIRECTION_FLAG = 1 << 4;
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /** Estimated bytes retained per handle: the table slots and the referenced entity. */
+    private static final int HANDLE_BYTES = 64;
+    /** Estimated bytes retained per interned rule list, besides one reference per rule. */
+    private static final int RULE_LIST_BYTES = 64;
+    private static final int CHECKPOINT_INTS = 3;
+    /** Heap bytes per turn: its end offset, its rule list id and its text flag. */
+    private static final int TURN_BYTES = 2 * Integer.BYTES + 1;
+    /** Rule list id of a turn whose resulting rules were not recorded. */
+    private static final int UNKNOWN_RULES = -1;
+
+    private final SpillableIntBuffer records = new SpillableIntBuffer();
+    private int[] turnEnds = new int[64];
+    private boolean[] turnAffectsText = new boolean[64];
+    private int[] turnRuleIds = new int[64];
+    private int baseRuleId = UNKNOWN_RULES;
+    private int turnCount;
+
+    private final List<Entity> entities = new ArrayList<>();
+    private final Map<Entity, Integer> handles = new IdentityHashMap<>();
+    private int handleCountAtCompaction;
+    /** Number of first handles that spilled records or checkpoints may refer to, which are never renumbered. */
+    private int spilledHandleCount;
+
+    private final List<List<Rule>> ruleLists = new ArrayList<>();
+    private final Map<Long, Integer> ruleListIds = new HashMap<>();
+    private long ruleListBytes;
+
+    private final SpillableIntBuffer checkpointData = new SpillableIntBuffer();
+    private int[] checkpointEnds = new int[16];
+    private int checkpointCount;
+
+    private LevelMap levelMap;
+    private MapBatch batch;
+    private int width;
+
+    /**
+     * Returns the number of recorded turns.
+     *
+     * @return the turn count
+     */
+    int getTurnCount() {
+        return turnCount;
+    }
+
+    /**
+     * Returns whether the given turn created, destroyed, moved or transformed a text entity.
+     *
+     * @param turn the index of the turn
+     * @return {@code true} if the rules must be parsed again after undoing or redoing the turn
+     */
+    boolean affectsText(int turn) {
+        return turnAffectsText[turn];
+    }
+
+    /**
+     * Returns the number of changes recorded for the given turn.
+     *
+     * @param turn the index of the turn
+     * @return the record count of the turn
+     */
+    int getRecordCount(int turn) {
+        return (turnEnds[turn] - getTurnStart(turn)) / RECORD_INTS;
+    }
+
+    /**
+     * Returns the rules in effect at the given node of the undo tree.
+     *
+     * @param node the node, {@code 0} for the state the history starts from
+     * @return the interned rule list, or {@code null} if it was not recorded
+     */
+    List<Rule> getRules(int node) {
+        int ruleId = node == 0 ? baseRuleId : turnRuleIds[node - 1];
+        return ruleId == UNKNOWN_RULES ? null : ruleLists.get(ruleId);
+    }
+
+    /**
+     * Records the rules in effect at the given node of the undo tree.
+     *
+     * @param node    the node, {@code 0} for the state the history starts from
+     * @param ruleset the ruleset in effect at that node, or {@code null} if unknown
+     */
+    void setRules(int node, Ruleset ruleset) {
+        int ruleId = internRules(ruleset);
+        if (node == 0) {
+            baseRuleId = ruleId;
+        } else {
+            turnRuleIds[node - 1] = ruleId;
+        }
+    }
+
+    /**
+     * Returns the id of the interned copy of the ruleset's rules, interning them first if no rule list with the same
+     * fingerprint was seen. Rule lists are only ever compared by fingerprint.
+     *
+     * @param ruleset the ruleset to intern, or {@code null}
+     * @return the rule list id, or {@link #UNKNOWN_RULES} if the ruleset is {@code null}
+     */
+    private int internRules(Ruleset ruleset) {
+        if (ruleset == null) {
+            return UNKNOWN_RULES;
+        }
+        return ruleListIds.computeIfAbsent(ruleset.getFingerprint(), fingerprint -> {
+            ruleLists.add(List.copyOf(ruleset.getRules()));
+            ruleListBytes += (long) ruleset.getRules().size() * Integer.BYTES + RULE_LIST_BYTES;
+            return ruleLists.size() - 1;
+        });
+    }
+
+    /**
+     * Encodes the given executed actions as a new turn at the end of the log.
+     *
+     * @param compositeAction the actions of the turn, already executed
+     * @param ruleset         the ruleset in effect after the turn, or {@code null} if unknown
+     */
+    void appendTurn(CompositeAction compositeAction, Ruleset ruleset) {
+        int start = records.length();
+        encode(compositeAction);
+        coalesce(start);
+        if (turnCount == turnEnds.length) {
+            turnEnds = Arrays.copyOf(turnEnds, turnCount * 2);
+            turnAffectsText = Arrays.copyOf(turnAffectsText, turnCount * 2);
+            turnRuleIds = Arrays.copyOf(turnRuleIds, turnCount * 2);
+        }
+        turnEnds[turnCount] = records.length();
+        turnAffectsText[turnCount] = compositeAction.affectsText();
+        turnRuleIds[turnCount] = internRules(ruleset);
+        turnCount++;
+    }
+
+    /**
+     * Collapses the records of each entity in the turn starting at the given offset into one net record, going from
+     * its first recorded cell and direction to its last ones.
+     * <p>Net records keep the order of the last change of each entity, so redoing the turn fills cells in the same
+     * order as playing it. An entity created and destroyed within the turn, or turned back to its first direction
+     * without moving, leaves no record at all.</p>
+     *
+     * @param start the offset of the first record of the turn
+     */
+    private void coalesce(int start) {
+        int end = records.length();
+        if (end - start <= RECORD_INTS) {
+            return;
+        }
+        Map<Integer, int[]> netRecords = new HashMap<>();
+        boolean hasRepeatedEntity = false;
+        for (int offset = start; offset < end; offset += RECORD_INTS) {
+            int handle = records.get(offset + HANDLE);
+            int oldCell = records.get(offset + OLD_CELL);
+            int newCell = records.get(offset + NEW_CELL);
+            int meta = records.get(offset + META);
+            int[] net = netRecords.get(handle);
+            if (net == null) {
+                netRecords.put(handle, new int[]{oldCell, newCell, meta, offset});
+                continue;
+            }
+            hasRepeatedEntity = true;
+            if (net[0] == KEEP) {
+                net[0] = oldCell;
+            }
+            if (newCell != KEEP) {
+                net[1] = newCell;
+            }
+            if ((meta & DIRECTION_FLAG) != 0) {
+                net[2] = (net[2] & DIRECTION_FLAG) != 0 ? DIRECTION_FLAG | net[2] & 3 | meta & 0b1100 : meta;
+            }
+            net[3] = offset;
+        }
+        if (!hasRepeatedEntity) {
+            return;
+        }
+
+        List<Map.Entry<Integer, int[]>> entries = new ArrayList<>(netRecords.entrySet());
+        entries.sort(Comparator.comparingInt(entry -> entry.getValue()[3]));
+        int offset = start;
+        for (Map.Entry<Integer, int[]> entry : entries) {
+            int[] net = entry.getValue();
+            int meta = net[2];
+            if ((meta & DIRECTION_FLAG) != 0 && (meta & 3) == (meta >> 2 & 3)) {
+                meta = 0;
+            }
+            boolean isNeverPlaced = net[0] == ABSENT && net[1] == ABSENT;
+            boolean isUnchanged = net[0] == KEEP && meta == 0;
+            if (isNeverPlaced || isUnchanged) {
+                continue;
+            }
+            records.set(offset + HANDLE, entry.getKey());
+            records.set(offset + OLD_CELL, net[0]);
+            records.set(offset + NEW_CELL, net[1]);
+            records.set(offset + META, meta);
+            offset += RECORD_INTS;
+        }
+        records.truncate(offset);
+    }
+
+    /**
+     * Drops the latest turn, as when it turns out to lead to a state the tree already holds.
+     * The map is left as it is.
+     */
+    void removeLastTurn() {
+        turnCount--;
+        records.truncate(getTurnStart(turnCount));
+        compactSparseHandles();
+    }
+
+    /**
+     * Returns whether a level map was bound by a recorded move, creation or destruction,
+     * which is needed to take checkpoints and to hash whole states.
+     *
+     * @return {@code true} if the level map is known
+     */
+    boolean hasLevelMap() {
+        return levelMap != null;
+    }
+
+    /**
+     * Stores the current state of the map as a new checkpoint.
+     *
+     * @return the index of the checkpoint
+     */
+    int takeCheckpoint() {
+        if (checkpointCount == checkpointEnds.length) {
+            checkpointEnds = Arrays.copyOf(checkpointEnds, checkpointCount * 2);
+        }
+        for (Point position : levelMap.getOccupiedPositions()) {
+            for (Entity entity : levelMap.getEntitiesAt(position)) {
+                checkpointData.add(getHandle(entity));
+                checkpointData.add(toCell(position.x, position.y));
+                checkpointData.add(entity.getDirection().ordinal());
+            }
+        }
+        checkpointEnds[checkpointCount] = checkpointData.length();
+        return checkpointCount++;
+    }
+
+    /**
+     * Returns the number of checkpoints.
+     *
+     * @return the checkpoint count
+     */
+    int getCheckpointCount() {
+        return checkpointCount;
+    }
+
+    /**
+     * Replaces every entity of the map with the ones stored in the given checkpoint.
+     *
+     * @param checkpoint the index of the checkpoint to restore
+     */
+    void restoreCheckpoint(int checkpoint) {
+        for (Entity entity : levelMap.getEntities()) {
+            batch.removeEntity(entity);
+        }
+        for (int offset = getCheckpointStart(checkpoint); offset < checkpointEnds[checkpoint]; offset += CHECKPOINT_INTS) {
+            Entity entity = entities.get(checkpointData.get(offset));
+            int cell = checkpointData.get(offset + 1);
+            batch.setPosition(entity, cell % width, cell / width);
+            entity.setDirection(DIRECTIONS[checkpointData.get(offset + 2)]);
+        }
+        batch.apply();
+    }
+
+    /**
+     * Copies the current state of the map into a checkpoint kept outside the log.
+     *
+     * @return the pinned checkpoint
+     */
+    PinnedCheckpoint pinCheckpoint() {
+        int entityCount = levelMap.getEntityCount();
+        Entity[] pinnedEntities = new Entity[entityCount];
+        int[] cells = new int[entityCount];
+        byte[] directions = new byte[entityCount];
+        int index = 0;
+        for (Point position : levelMap.getOccupiedPositions()) {
+            for (Entity entity : levelMap.getEntitiesAt(position)) {
+                pinnedEntities[index] = entity;
+                cells[index] = toCell(position.x, position.y);
+                directions[index] = (byte) entity.getDirection().ordinal();
+                index++;
+            }
+        }
+        return new PinnedCheckpoint(pinnedEntities, cells, directions);
+    }
+
+    /**
+     * Replaces every entity of the map with the ones stored in the given pinned checkpoint.
+     *
+     * @param checkpoint the pinned checkpoint to restore
+     */
+    void restoreCheckpoint(PinnedCheckpoint checkpoint) {
+        for (Entity entity : levelMap.getEntities()) {
+            batch.removeEntity(entity);
+        }
+        for (int index = 0; index < checkpoint.getEntityCount(); index++) {
+            Entity entity = checkpoint.getEntity(index);
+            int cell = checkpoint.getCell(index);
+            batch.setPosition(entity, cell % width, cell / width);
+            entity.setDirection(DIRECTIONS[checkpoint.getDirection(index)]);
+        }
+        batch.apply();
+    }
+
+    /**
+     * Returns the hash of the current state of the map, computed from every entity on it.
+     *
+     * @return the Zobrist hash of the map, or {@code 0} if no level map is bound yet
+     */
+    long computeStateHash() {
+        long hash = 0;
+        if (levelMap != null) {
+            for (Entity entity : levelMap.getEntities()) {
+                hash ^= stateKey(entity, getCurrentCell(entity), entity.getDirection().ordinal());
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Returns the value to XOR into the hash of the state before the given turn to get the hash of the state after it.
+     * The map must currently be in the state after the turn.
+     *
+     * @param turn the index of the turn
+     * @return the change of the state hash made by the turn
+     */
+    long getStateHashDelta(int turn) {
+        Map<Integer, int[]> statesBefore = new HashMap<>();
+        for (int offset = getTurnStart(turn); offset < turnEnds[turn]; offset += RECORD_INTS) {
+            int[] stateBefore = statesBefore.computeIfAbsent(records.get(offset + HANDLE), handle -> new int[]{KEEP, -1});
+            if (stateBefore[0] == KEEP) {
+                stateBefore[0] = records.get(offset + OLD_CELL);
+            }
+            int meta = records.get(offset + META);
+            if (stateBefore[1] < 0 && (meta & DIRECTION_FLAG) != 0) {
+                stateBefore[1] = meta & 3;
+            }
+        }
+        long delta = 0;
+        for (Map.Entry<Integer, int[]> entry : statesBefore.entrySet()) {
+            Entity entity = entities.get(entry.getKey());
+            int cell = getCurrentCell(entity);
+            int direction = entity.getDirection().ordinal();
+            int[] stateBefore = entry.getValue();
+            delta ^= stateKey(entity, stateBefore[0] == KEEP ? cell : stateBefore[0], stateBefore[1] < 0 ? direction : stateBefore[1])
+                    ^ stateKey(entity, cell, direction);
+        }
+        return delta;
+    }
+
+    /**
+     * Returns the cell the given entity currently occupies.
+     *
+     * @param entity the entity to look up
+     * @return the encoded cell, {@link #ABSENT} if the entity is not on the map, or {@link #KEEP} if no map is bound
+     */
+    private int getCurrentCell(Entity entity) {
+        if (levelMap == null) {
+            return KEEP;
+        }
+        if (levelMap.getEntityById(entity.getEntityId()) != entity) {
+            return ABSENT;
+        }
+        return toCell(levelMap.getX(entity), levelMap.getY(entity));
+    }
+
+    /**
+     * Returns the Zobrist key of an entity standing on a cell and facing a direction.
+     *
+     * @param entity    the entity
+     * @param cell      the encoded cell, or {@link #ABSENT}
+     * @param direction the ordinal of the direction
+     * @return the key, {@code 0} for an absent entity
+     */
+    private static long stateKey(Entity entity, int cell, int direction) {
+        if (cell == ABSENT) {
+            return 0;
+        }
+        UUID id = entity.getEntityId();
+        long state = ((long) cell << 2 | direction) + 1;
+        return mix(id.getMostSignificantBits() ^ mix(id.getLeastSignificantBits() ^ state * 0x9E3779B97F4A7C15L));
+    }
+
+    /** The finalization step of MurmurHash3, spreading every input bit over the whole output. */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    /**
+     * Encodes a single action, descending into composite actions.
+     *
+     * @param action the executed action to encode
+     */
+    private void encode(Action action) {
+        switch (action) {
+            case CompositeAction composite -> composite.getActions().forEach(this::encode);
+            case MoveAction move -> move.encode(this);
+            case RotateAction rotate -> rotate.encode(this);
+            case CreateAction create -> create.encode(this);
+            case DestroyAction destroy -> destroy.encode(this);
+            case TransformAction transform -> transform.encode(this);
+            default -> throw new IllegalArgumentException("Cannot record action " + action.getClass().getSimpleName());
+        }
+    }
+
+    /** Records a move from one cell to another, along with the change of direction. */
+    void appendMove(LevelMap levelMap, Entity entity, int startX, int startY, int endX, int endY,
+                    Direction startDirection, Direction endDirection) {
+        bind(levelMap);
+        append(entity, toCell(startX, startY), toCell(endX, endY), directionMeta(startDirection, endDirection));
+    }
+
+    /** Records a change of direction without movement. */
+    void appendRotate(Entity entity, Direction startDirection, Direction endDirection) {
+        append(entity, KEEP, KEEP, directionMeta(startDirection, endDirection));
+    }
+
+    /** Records an entity being placed on the map. */
+    void appendCreate(LevelMap levelMap, Entity entity, int posX, int posY) {
+        bind(levelMap);
+        append(entity, ABSENT, toCell(posX, posY), 0);
+    }
+
+    /** Records an entity being removed from the map. */
+    void appendDestroy(LevelMap levelMap, Entity entity, int posX, int posY) {
+        bind(levelMap);
+        append(entity, toCell(posX, posY), ABSENT, 0);
+    }
+
+    /**
+     * Reverts the given turn by applying its records backwards.
+     *
+     * @param turn the index of the turn to revert
+     */
+    void undoTurn(int turn) {
+        for (int offset = turnEnds[turn] - RECORD_INTS; offset >= getTurnStart(turn); offset -= RECORD_INTS) {
+            int meta = records.get(offset + META);
+            apply(records.get(offset + HANDLE), records.get(offset + OLD_CELL), meta, meta & 3);
+        }
+        applyBatch();
+    }
+
+    /**
+     * Applies the given turn again, in the order it was recorded.
+     *
+     * @param turn the index of the turn to apply
+     */
+    void redoTurn(int turn) {
+        for (int offset = getTurnStart(turn); offset < turnEnds[turn]; offset += RECORD_INTS) {
+            int meta = records.get(offset + META);
+            apply(records.get(offset + HANDLE), records.get(offset + NEW_CELL), meta, (meta >> 2) & 3);
+        }
+        applyBatch();
+    }
+
+    /**
+     * Turns an entity to the given direction and adds its move to the given cell to the batch of the replayed turn.
+     *
+     * @param handle         the handle of the entity
+     * @param cell           the target cell, {@link #ABSENT} to remove it, or {@link #KEEP} to leave it in place
+     * @param meta           the meta field of the record
+     * @param directionIndex the ordinal of the target direction, used only if the record changes the direction
+     */
+    private void apply(int handle, int cell, int meta, int directionIndex) {
+        Entity entity = entities.get(handle);
+        if (cell == ABSENT) {
+            batch.removeEntity(entity);
+        } else if (cell != KEEP) {
+            batch.setPosition(entity, cell % width, cell / width);
+        }
+        if ((meta & DIRECTION_FLAG) != 0) {
+            entity.setDirection(DIRECTIONS[directionIndex]);
+        }
+    }
+
+    /**
+     * Keeps only the given turns and checkpoints, renumbering them in order, and drops everything else.
+     * Only possible while nothing is spilled.
+     *
+     * @param keptTurns       the indices of the turns to keep, in increasing order
+     * @param baseNode        the node whose rules become those of the state before the first kept turn
+     * @param keptCheckpoints whether each checkpoint is kept
+     * @return the new index of every checkpoint, or {@code -1} for a dropped one
+     * @throws IllegalStateException if records or checkpoints are spilled
+     */
+    int[] retain(int[] keptTurns, int baseNode, boolean[] keptCheckpoints) {
+        if (records.getSpilledLength() > 0 || checkpointData.getSpilledLength() > 0) {
+            throw new IllegalStateException("Cannot drop spilled turns");
+        }
+        baseRuleId = baseNode == 0 ? baseRuleId : turnRuleIds[baseNode - 1];
+        // Turns and checkpoints only move towards the front, so they are compacted in place
+        int length = 0;
+        for (int index = 0; index < keptTurns.length; index++) {
+            int turn = keptTurns[index];
+            int start = getTurnStart(turn);
+            int end = turnEnds[turn];
+            records.copyWithin(start, length, end - start);
+            length += end - start;
+            turnEnds[index] = length;
+            turnAffectsText[index] = turnAffectsText[turn];
+            turnRuleIds[index] = turnRuleIds[turn];
+        }
+        records.truncate(length);
+        turnCount = keptTurns.length;
+
+        int[] checkpointRemap = new int[checkpointCount];
+        int newCheckpointCount = 0;
+        length = 0;
+        for (int checkpoint = 0; checkpoint < checkpointCount; checkpoint++) {
+            if (!keptCheckpoints[checkpoint]) {
+                checkpointRemap[checkpoint] = -1;
+                continue;
+            }
+            int start = getCheckpointStart(checkpoint);
+            int end = checkpointEnds[checkpoint];
+            checkpointData.copyWithin(start, length, end - start);
+            length += end - start;
+            checkpointEnds[newCheckpointCount] = length;
+            checkpointRemap[checkpoint] = newCheckpointCount++;
+        }
+        checkpointData.truncate(length);
+        checkpointCount = newCheckpointCount;
+        compactSparseHandles();
+        return checkpointRemap;
+    }
+
+    /**
+     * Drops the given number of oldest turns and checkpoints, shifting the indices of the remaining ones.
+     * The rules after the last dropped turn become those of the state the history starts from.
+     * Only possible while nothing is spilled.
+     *
+     * @param droppedTurns       the number of turns to drop
+     * @param droppedCheckpoints the number of checkpoints to drop, none of them used by a kept turn
+     * @throws IllegalStateException if records or checkpoints are spilled
+     */
+    void dropOldest(int droppedTurns, int droppedCheckpoints) {
+        if (droppedTurns > 0) {
+            baseRuleId = turnRuleIds[droppedTurns - 1];
+            int droppedInts = turnEnds[droppedTurns - 1];
+            records.dropFront(droppedInts);
+            turnCount -= droppedTurns;
+            System.arraycopy(turnAffectsText, droppedTurns, turnAffectsText, 0, turnCount);
+            System.arraycopy(turnRuleIds, droppedTurns, turnRuleIds, 0, turnCount);
+            for (int turn = 0; turn < turnCount; turn++) {
+                turnEnds[turn] = turnEnds[turn + droppedTurns] - droppedInts;
+            }
+        }
+        if (droppedCheckpoints > 0) {
+            int droppedInts = checkpointEnds[droppedCheckpoints - 1];
+            checkpointData.dropFront(droppedInts);
+            checkpointCount -= droppedCheckpoints;
+            for (int checkpoint = 0; checkpoint < checkpointCount; checkpoint++) {
+                checkpointEnds[checkpoint] = checkpointEnds[checkpoint + droppedCheckpoints] - droppedInts;
+            }
+        }
+        compactSparseHandles();
+    }
+
+    /**
+     * Returns the estimated number of heap bytes the given turn takes.
+     *
+     * @param turn the index of the turn
+     * @return the estimated memory usage of the turn in bytes
+     */
+    long getTurnBytes(int turn) {
+        return (long) (turnEnds[turn] - getTurnStart(turn)) * Integer.BYTES + TURN_BYTES;
+    }
+
+    /**
+     * Returns the estimated number of heap bytes the given checkpoint takes.
+     *
+     * @param checkpoint the index of the checkpoint
+     * @return the estimated memory usage of the checkpoint in bytes
+     */
+    long getCheckpointBytes(int checkpoint) {
+        return (long) (checkpointEnds[checkpoint] - getCheckpointStart(checkpoint)) * Integer.BYTES + Integer.BYTES;
+    }
+
+    /**
+     * Returns the estimated number of bytes retained by the recorded turns, including the referenced entities.
+     *
+     * @return the estimated memory usage in bytes
+     */
+    long getMemoryUsage() {
+        return records.getHeapBytes()
+                + (long) turnCount * TURN_BYTES
+                + checkpointData.getHeapBytes()
+                + (long) checkpointCount * Integer.BYTES
+                + (long) entities.size() * HANDLE_BYTES
+                + ruleListBytes;
+    }
+
+    /**
+     * Opens scratch files in the given directory to spill the oldest records and checkpoints to.
+     *
+     * @param directory the directory of the scratch files
+     * @throws IOException if a file cannot be created
+     */
+    void openSpillFile(Path directory) throws IOException {
+        records.openSpillFile(directory);
+        checkpointData.openSpillFile(directory);
+    }
+
+    /** Moves every spilled record and checkpoint back to the heap and closes the scratch files. */
+    void closeSpillFile() {
+        records.closeSpillFile();
+        checkpointData.closeSpillFile();
+        spilledHandleCount = 0;
+    }
+
+    /**
+     * Returns whether scratch files are open, in which case old turns are spilled instead of dropped.
+     *
+     * @return {@code true} if records can be spilled
+     */
+    boolean canSpill() {
+        return records.canSpill();
+    }
+
+    /**
+     * Spills the oldest checkpoints, then the oldest records, until the estimated heap usage falls to the given value
+     * or nothing is left to spill. The latest checkpoint and the given number of latest turns always stay on the heap,
+     * even once the per-turn data that is never spilled exceeds the given value on its own. Spilled turns stay
+     * available and are paged in when they are undone or redone.
+     *
+     * @param heapBytes the estimated heap usage to reach
+     * @param keptTurns the number of latest turns to keep on the heap
+     */
+    void spill(long heapBytes, int keptTurns) {
+        long excessInts = (getMemoryUsage() - heapBytes) / Integer.BYTES;
+        excessInts -= spill(checkpointData, getCheckpointStart(Math.max(checkpointCount - 1, 0)), excessInts);
+        spill(records, getTurnStart(Math.max(turnCount - keptTurns, 0)), excessInts);
+        if (records.getSpilledLength() > 0 || checkpointData.getSpilledLength() > 0) {
+            spilledHandleCount = entities.size();
+        }
+    }
+
+    /**
+     * Spills the given number of values of a buffer, without going past the given index.
+     *
+     * @param buffer     the buffer to spill
+     * @param limit      the index of the first value to keep on the heap
+     * @param excessInts the number of values to spill
+     * @return the number of values spilled
+     */
+    private static int spill(SpillableIntBuffer buffer, int limit, long excessInts) {
+        int spilledInts = Math.clamp(excessInts, 0, Math.max(limit - buffer.getSpilledLength(), 0));
+        buffer.spill(buffer.getSpilledLength() + spilledInts);
+        return spilledInts;
+    }
+
+    /** Removes every turn, handle and rule list, and forgets the level map. */
+    void clear() {
+        records.clear();
+        turnCount = 0;
+        checkpointData.clear();
+        checkpointCount = 0;
+        entities.clear();
+        handles.clear();
+        handleCountAtCompaction = 0;
+        spilledHandleCount = 0;
+        ruleLists.clear();
+        ruleListIds.clear();
+        ruleListBytes = 0;
+        baseRuleId = UNKNOWN_RULES;
+        levelMap = null;
+        batch = null;
+    }
+
+    private int getTurnStart(int turn) {
+        return turn == 0 ? 0 : turnEnds[turn - 1];
+    }
+
+    private int getCheckpointStart(int checkpoint) {
+        return checkpoint == 0 ? 0 : checkpointEnds[checkpoint - 1];
+    }
+
+    /**
+     * Remembers the level map the recorded actions belong to, since cells are encoded with its width.
+     *
+     * @param levelMap the level map of the action being recorded
+     */
+    private void bind(LevelMap levelMap) {
+        if (this.levelMap == null) {
+            this.levelMap = levelMap;
+            this.width = levelMap.getWidth();
+            this.batch = new MapBatch(levelMap);
+        } else if (this.levelMap != levelMap) {
+            throw new IllegalArgumentException("Actions of another level map cannot be recorded in the same history");
+        }
+    }
+
+    /** Applies the map changes of the replayed turn at once, if it had any. */
+    private void applyBatch() {
+        if (batch != null) {
+            batch.apply();
+        }
+    }
+
+    private int toCell(int x, int y) {
+        return y * width + x;
+    }
+
+    private static int directionMeta(Direction startDirection, Direction endDirection) {
+        return DIRECTION_FLAG | startDirection.ordinal() | endDirection.ordinal() << 2;
+    }
+
+    private void append(Entity entity, int oldCell, int newCell, int meta) {
+        records.add(getHandle(entity));
+        records.add(oldCell);
+        records.add(newCell);
+        records.add(meta);
+    }
+
+    private int getHandle(Entity entity) {
+        Integer handle = handles.get(entity);
+        if (handle == null) {
+            handle = entities.size();
+            entities.add(entity);
+            handles.put(entity, handle);
+        }
+        return handle;
+    }
+
+    /**
+     * Compacts the handle table once it has more than doubled since the last compaction, so the cost of going over
+     * every record is spread over the many turns that added handles.
+     */
+    private void compactSparseHandles() {
+        if (entities.size() > 2 * handleCountAtCompaction + 64) {
+            compactHandles();
+        }
+    }
+
+    /**
+     * Rebuilds the handle table with only the entities still referenced by a record or a checkpoint,
+     * renumbering the records and checkpoints.
+     * <p>Only the records and checkpoints on the heap are read, so spilled ones are never paged in. The handles they
+     * may refer to are all older than the latest spill, and those keep their number.</p>
+     */
+    private void compactHandles() {
+        int[] remap = new int[entities.size()];
+        Arrays.fill(remap, -1);
+        List<Entity> liveEntities = new ArrayList<>(entities.subList(0, spilledHandleCount));
+        handles.clear();
+        for (int handle = 0; handle < spilledHandleCount; handle++) {
+            remap[handle] = handle;
+            handles.put(entities.get(handle), handle);
+        }
+        for (int offset = firstHeapOffset(records, RECORD_INTS) + HANDLE; offset < records.length(); offset += RECORD_INTS) {
+            records.set(offset, remapHandle(records.get(offset), remap, liveEntities));
+        }
+        for (int offset = firstHeapOffset(checkpointData, CHECKPOINT_INTS); offset < checkpointData.length(); offset += CHECKPOINT_INTS) {
+            checkpointData.set(offset, remapHandle(checkpointData.get(offset), remap, liveEntities));
+        }
+        entities.clear();
+        entities.addAll(liveEntities);
+        handleCountAtCompaction = entities.size();
+    }
+
+    /**
+     * Returns the offset of the first entry of a buffer whose first value is still on the heap.
+     *
+     * @param buffer     the buffer of entries
+     * @param entryInts  the number of values per entry
+     * @return the offset of the entry
+     */
+    private static int firstHeapOffset(SpillableIntBuffer buffer, int entryInts) {
+        return (buffer.getSpilledLength() + entryInts - 1) / entryInts * entryInts;
+    }
+
+    private int remapHandle(int handle, int[] remap, List<Entity> liveEntities) {
+        if (remap[handle] < 0) {
+            remap[handle] = liveEntities.size();
+            Entity entity = entities.get(handle);
+            liveEntities.add(entity);
+            handles.put(entity, remap[handle]);
+        }
+        return remap[handle];
+    }
+}
@@ -0,0 +1,423 @@
+package model.action;
+
+import java.util.Arrays;
+
+/**
+ * The shape of the undo history: every recorded turn leads to a node, and playing after an undo starts a new branch
+ * instead of discarding the undone turns.
+ * <p>Node {@code 0} is the state the history started from, and node {@code n > 0} is the state reached by the turn
+ * stored for it in the {@link UndoLog}. Each node remembers the child it was last left towards, which defines the
+ * current line of play used by undo, redo and seeking by turn number.</p>
+ * <p>Each node also carries a Zobrist hash of its state. A turn that leads from a node to the same state as one of its
+ * existing children reuses that child instead of growing the tree, and identical states anywhere in the tree share
+ * one checkpoint.</p>
+ */
+class UndoTree {
+    /** Marks a node without a parent, child or checkpoint. */
+    static final int NONE = -1;
+
+    /** Estimated heap bytes per node: the per-node arrays, and two hash index slots at half load. */
+    static final int NODE_BYTES = 6 * Integer.BYTES + Long.BYTES + 2 * 2 * (Long.BYTES + Integer.BYTES);
+
+    private int[] parents = new int[64];
+    private int[] depths = new int[64];
+    private int[] lastChildren = new int[64];
+    private int[] checkpoints = new int[64];
+    private int[] turnsSinceCheckpoint = new int[64];
+    private int[] recordsSinceCheckpoint = new int[64];
+    private long[] hashes = new long[64];
+    private int nodeCount;
+    private boolean isRootHashKnown;
+
+    private final HashIndex nodesByHash = new HashIndex();
+    private final HashIndex childrenByHash = new HashIndex();
+
+    private int current;
+    private int lineEnd;
+
+    UndoTree() {
+        clear();
+    }
+
+    /** Removes every node but a new root, which becomes the current node. */
+    void clear() {
+        nodeCount = 0;
+        nodesByHash.clear();
+        childrenByHash.clear();
+        isRootHashKnown = false;
+        addNode(NONE, 0L, 0);
+        current = 0;
+        lineEnd = 0;
+    }
+
+    int getNodeCount() {
+        return nodeCount;
+    }
+
+    int getCurrent() {
+        return current;
+    }
+
+    /**
+     * Makes the given node the current one and remembers, for each node on the way from its parent up to the root,
+     * that the line of play continues towards it.
+     *
+     * @param node the new current node
+     */
+    void setCurrent(int node) {
+        current = node;
+        while (parents[node] != NONE && lastChildren[parents[node]] != node) {
+            lastChildren[parents[node]] = node;
+            node = parents[node];
+        }
+    }
+
+    /**
+     * Returns the deepest node of the current line, reached from the current node by always following the last child.
+     *
+     * @return the end of the current line
+     */
+    int getLineEnd() {
+        return lineEnd;
+    }
+
+    /** Follows the last children from the current node to find the end of the current line again. */
+    void updateLineEnd() {
+        int node = current;
+        while (lastChildren[node] != NONE) {
+            node = lastChildren[node];
+        }
+        lineEnd = node;
+    }
+
+    int getParent(int node) {
+        return parents[node];
+    }
+
+    int getDepth(int node) {
+        return depths[node];
+    }
+
+    int getLastChild(int node) {
+        return lastChildren[node];
+    }
+
+    long getHash(int node) {
+        return hashes[node];
+    }
+
+    /**
+     * Returns whether the hash of the root is known. It is only learned when the first turn is recorded,
+     * since the state before it is gone by then.
+     *
+     * @return {@code true} if the root hash was set
+     */
+    boolean isRootHashKnown() {
+        return isRootHashKnown;
+    }
+
+    /**
+     * Sets the hash of the root state.
+     *
+     * @param hash the Zobrist hash of the state the history starts from
+     */
+    void setRootHash(long hash) {
+        hashes[0] = hash;
+        nodesByHash.putIfAbsent(hash, 0);
+        isRootHashKnown = true;
+    }
+
+    /**
+     * Returns the child of the given node whose state has the given hash.
+     *
+     * @param parent the node the turn was played from
+     * @param hash   the hash of the state after the turn
+     * @return the existing child, or {@link #NONE} if the turn leads to a new state
+     */
+    int findChild(int parent, long hash) {
+        int child = childrenByHash.get(childKey(parent, hash));
+        return child != NONE && parents[child] == parent && hashes[child] == hash ? child : NONE;
+    }
+
+    /**
+     * Returns the first recorded node whose state has the given hash.
+     *
+     * @param hash the hash of the state to find
+     * @return the node, or {@link #NONE} if the state was never visited
+     */
+    int findNode(long hash) {
+        return nodesByHash.get(hash);
+    }
+
+    /**
+     * Adds a child to the given node.
+     *
+     * @param parent      the node the turn was played from
+     * @param hash        the hash of the state after the turn
+     * @param recordCount the number of records of the turn
+     * @return the new node
+     */
+    int addNode(int parent, long hash, int recordCount) {
+        if (nodeCount == parents.length) {
+            int capacity = nodeCount * 2;
+            parents = Arrays.copyOf(parents, capacity);
+            depths = Arrays.copyOf(depths, capacity);
+            lastChildren = Arrays.copyOf(lastChildren, capacity);
+            checkpoints = Arrays.copyOf(checkpoints, capacity);
+            turnsSinceCheckpoint = Arrays.copyOf(turnsSinceCheckpoint, capacity);
+            recordsSinceCheckpoint = Arrays.copyOf(recordsSinceCheckpoint, capacity);
+            hashes = Arrays.copyOf(hashes, capacity);
+        }
+        int node = nodeCount++;
+        parents[node] = parent;
+        depths[node] = parent == NONE ? 0 : depths[parent] + 1;
+        lastChildren[node] = NONE;
+        checkpoints[node] = NONE;
+        turnsSinceCheckpoint[node] = parent == NONE ? 0 : turnsSinceCheckpoint[parent] + 1;
+        recordsSinceCheckpoint[node] = parent == NONE ? 0 : recordsSinceCheckpoint[parent] + recordCount;
+        hashes[node] = hash;
+        if (parent != NONE) {
+            nodesByHash.putIfAbsent(hash, node);
+            childrenByHash.put(childKey(parent, hash), node);
+        }
+        return node;
+    }
+
+    /**
+     * Returns whether the given node is far enough from the checkpoint of its nearest ancestor to need its own.
+     *
+     * @param node           the node to check
+     * @param turnInterval   the number of turns between checkpoints
+     * @param recordInterval the number of records between checkpoints
+     * @return {@code true} if a checkpoint should be taken for the node
+     */
+    boolean isCheckpointDue(int node, int turnInterval, int recordInterval) {
+        return turnsSinceCheckpoint[node] >= turnInterval || recordsSinceCheckpoint[node] >= recordInterval;
+    }
+
+    /**
+     * Returns the checkpoint already taken of the given node's state, possibly for another node with the same state.
+     *
+     * @param node the node to look up
+     * @return the checkpoint index, or {@link #NONE} if the state has no checkpoint
+     */
+    int findSharedCheckpoint(int node) {
+        int sameState = findNode(hashes[node]);
+        return sameState == NONE ? NONE : checkpoints[sameState];
+    }
+
+    /**
+     * Attaches a checkpoint to the given node.
+     *
+     * @param node       the node the checkpoint restores
+     * @param checkpoint the index of the checkpoint in the {@link UndoLog}
+     */
+    void setCheckpoint(int node, int checkpoint) {
+        checkpoints[node] = checkpoint;
+        turnsSinceCheckpoint[node] = 0;
+        recordsSinceCheckpoint[node] = 0;
+    }
+
+    int getCheckpoint(int node) {
+        return checkpoints[node];
+    }
+
+    /**
+     * Returns the ancestor of the given node at the given depth.
+     *
+     * @param node  the node to start from
+     * @param depth the depth of the ancestor, at most the depth of the node
+     * @return the ancestor, or the node itself if the depths are equal
+     */
+    int getAncestor(int node, int depth) {
+        while (depths[node] > depth) {
+            node = parents[node];
+        }
+        return node;
+    }
+
+    /**
+     * Returns the deepest node that is an ancestor of both given nodes, or one of the nodes itself.
+     *
+     * @param first  a node
+     * @param second another node
+     * @return the lowest common ancestor
+     */
+    int getCommonAncestor(int first, int second) {
+        first = getAncestor(first, depths[second]);
+        second = getAncestor(second, depths[first]);
+        while (first != second) {
+            first = parents[first];
+            second = parents[second];
+        }
+        return first;
+    }
+
+    /**
+     * Keeps only the given nodes, in the given order, which must be a path going down from its first node.
+     * The first node becomes the root.
+     *
+     * @param keptNodes        the nodes to keep
+     * @param checkpointRemap  the new index of every checkpoint, or {@link #NONE} for a dropped one
+     */
+    void retainPath(int[] keptNodes, int[] checkpointRemap) {
+        int oldCurrent = current;
+        int oldLineEnd = lineEnd;
+        int[] oldParents = parents;
+        int[] oldCheckpoints = checkpoints;
+        int[] oldTurnsSince = turnsSinceCheckpoint;
+        int[] oldRecordsSince = recordsSinceCheckpoint;
+        long[] oldHashes = hashes;
+
+        parents = new int[Math.max(keptNodes.length, 64)];
+        depths = new int[parents.length];
+        lastChildren = new int[parents.length];
+        checkpoints = new int[parents.length];
+        turnsSinceCheckpoint = new int[parents.length];
+        recordsSinceCheckpoint = new int[parents.length];
+        hashes = new long[parents.length];
+        nodesByHash.clear();
+        childrenByHash.clear();
+        nodeCount = keptNodes.length;
+
+        for (int node = 0; node < keptNodes.length; node++) {
+            int oldNode = keptNodes[node];
+            parents[node] = node == 0 ? NONE : node - 1;
+            depths[node] = node;
+            lastChildren[node] = node + 1 < keptNodes.length ? node + 1 : NONE;
+            int oldCheckpoint = oldCheckpoints[oldNode];
+            checkpoints[node] = oldCheckpoint == NONE ? NONE : checkpointRemap[oldCheckpoint];
+            turnsSinceCheckpoint[node] = oldTurnsSince[oldNode];
+            recordsSinceCheckpoint[node] = oldRecordsSince[oldNode];
+            hashes[node] = oldHashes[oldNode];
+            nodesByHash.putIfAbsent(hashes[node], node);
+            if (node > 0) {
+                childrenByHash.put(childKey(node - 1, hashes[node]), node);
+            }
+            if (oldNode == oldCurrent) {
+                current = node;
+            }
+            if (oldNode == oldLineEnd) {
+                lineEnd = node;
+            }
+        }
+        if (oldParents[keptNodes[0]] != NONE) {
+            turnsSinceCheckpoint[0] = 0;
+            recordsSinceCheckpoint[0] = 0;
+        }
+    }
+
+    /**
+     * Drops the given number of first nodes of a tree that is a single line, each node the parent of the next,
+     * shifting the indices of the remaining ones in place. The first kept node becomes the root.
+     *
+     * @param droppedNodes       the number of nodes to drop, fewer than the node count
+     * @param droppedCheckpoints the number of oldest checkpoints dropped along with them
+     */
+    void dropOldest(int droppedNodes, int droppedCheckpoints) {
+        nodeCount -= droppedNodes;
+        System.arraycopy(checkpoints, droppedNodes, checkpoints, 0, nodeCount);
+        System.arraycopy(turnsSinceCheckpoint, droppedNodes, turnsSinceCheckpoint, 0, nodeCount);
+        System.arraycopy(recordsSinceCheckpoint, droppedNodes, recordsSinceCheckpoint, 0, nodeCount);
+        System.arraycopy(hashes, droppedNodes, hashes, 0, nodeCount);
+        nodesByHash.clear();
+        childrenByHash.clear();
+        for (int node = 0; node < nodeCount; node++) {
+            parents[node] = node - 1;
+            depths[node] = node;
+            lastChildren[node] = node + 1 < nodeCount ? node + 1 : NONE;
+            if (checkpoints[node] != NONE) {
+                checkpoints[node] -= droppedCheckpoints;
+            }
+            nodesByHash.putIfAbsent(hashes[node], node);
+            if (node > 0) {
+                childrenByHash.put(childKey(node - 1, hashes[node]), node);
+            }
+        }
+        turnsSinceCheckpoint[0] = 0;
+        recordsSinceCheckpoint[0] = 0;
+        current -= droppedNodes;
+        lineEnd -= droppedNodes;
+    }
+
+    private static long childKey(int parent, long hash) {
+        return hash * 0x9E3779B97F4A7C15L + parent;
+    }
+
+    /**
+     * An open-addressing map from {@code long} keys to node indices, which avoids boxing a key and a value per node.
+     */
+    private static final class HashIndex {
+        private long[] keys = new long[128];
+        private int[] values = new int[128];
+        private int size;
+
+        HashIndex() {
+            Arrays.fill(values, NONE);
+        }
+
+        int get(long key) {
+            int slot = slot(key, keys.length);
+            while (values[slot] != NONE) {
+                if (keys[slot] == key) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & (keys.length - 1);
+            }
+            return NONE;
+        }
+
+        void put(long key, int value) {
+            insert(key, value, true);
+        }
+
+        void putIfAbsent(long key, int value) {
+            insert(key, value, false);
+        }
+
+        void clear() {
+            keys = new long[128];
+            values = new int[128];
+            Arrays.fill(values, NONE);
+            size = 0;
+        }
+
+        private void insert(long key, int value, boolean isReplacing) {
+            if (2 * (size + 1) > keys.length) {
+                grow();
+            }
+            int slot = slot(key, keys.length);
+            while (values[slot] != NONE) {
+                if (keys[slot] == key) {
+                    if (isReplacing) {
+                        values[slot] = value;
+                    }
+                    return;
+                }
+                slot = (slot + 1) & (keys.length - 1);
+            }
+            keys[slot] = key;
+            values[slot] = value;
+            size++;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new int[oldKeys.length * 2];
+            Arrays.fill(values, NONE);
+            size = 0;
+            for (int slot = 0; slot < oldKeys.length; slot++) {
+                if (oldValues[slot] != NONE) {
+                    insert(oldKeys[slot], oldValues[slot], true);
+                }
+            }
+        }
+
+        private static int slot(long key, int capacity) {
+            int hash = (int) (key ^ key >>> 32);
+            return (hash ^ hash >>> 16) & (capacity - 1);
+        }
+    }
+}
@@ -1,19 +1,44 @@
 package model.map;
 
+import model.entity.Direction;
 import model.entity.Entity;
+import model.entity.EntityType;
 
 import java.awt.*;
 import java.util.*;
 import java.util.List;
+import java.util.function.IntConsumer;
 
 /**
  * Represents a 2D grid-based level map containing entities.
  */
-public class LevelMap {
+public class LevelMap implements MapView {
+    /** Estimated bytes of a hash map or hash set entry, including its share of the bucket table. */
+    static final int ENTRY_BYTES = 40;
+    /** Estimated bytes of a {@link Point}. */
+    static final int POINT_BYTES = 24;
+    /** Estimated bytes of an array header, besides its elements. */
+    static final int ARRAY_BYTES = 16;
+    /** Estimated bytes of an entity along with its UUID. */
+    private static final int ENTITY_BYTES = 56;
+    /** Estimated bytes of an array list, besides one reference per element. */
+    private static final int LIST_BYTES = 40;
+
     private final int width;
     private final int height;
     private final Map<Point, List<Entity>> grid;
     private final Map<Entity, Point> entityPositions;
+    private final Set<Entity> textEntities;
+    private final Map<UUID, Entity> entitiesById;
+    private final Map<EntityType, Set<Entity>> entitiesByType;
+    private long[] cellVersions;
+    private long version;
+    private int[] changeJournal;
+    private long changeCount;
+    private Point[] cellPoints;
+    private LevelSnapshot trackedSnapshot;
+    private BitSet changedCells;
+    private int epoch;
 
     /**
      * Creates an empty level map with the given dimensions.
@@ -26,6 +51,9 @@ public class LevelMap {
         this.height = height;
         this.grid = new HashMap<>();
         this.entityPositions = new HashMap<>();
+        this.textEntities = new HashSet<>();
+        this.entitiesById = new HashMap<>();
+        this.entitiesByType = new HashMap<>();
     }
 
     /**
@@ -38,6 +66,9 @@ public class LevelMap {
         this.height = other.height;
         this.grid = new HashMap<>();
         this.entityPositions = new HashMap<>();
+        this.textEntities = new HashSet<>();
+        this.entitiesById = new HashMap<>();
+        this.entitiesByType = new HashMap<>();
         for (Entity entity : other.getEntities()) {
             Entity clonedEntity = new Entity(entity);
             Point position = other.entityPositions.get(entity);
@@ -90,6 +121,8 @@ public class LevelMap {
                 }
             }
             entityPositions.remove(entity);
+            touchCell(position);
+            unindex(entity);
         }
     }
 
@@ -111,11 +144,115 @@ public class LevelMap {
                     grid.remove(oldPosition);
                 }
             }
+            touchCell(oldPosition);
         }
 
-        Point newPosition = new Point(newX, newY);
+        Point newPosition = pointAt(newX, newY);
+        touchCell(newPosition);
         grid.computeIfAbsent(newPosition, k -> new ArrayList<>()).add(entity);
         entityPositions.put(entity, newPosition);
+        entitiesById.putIfAbsent(entity.getEntityId(), entity);
+        entitiesByType.computeIfAbsent(entity.getType(), k -> new LinkedHashSet<>()).add(entity);
+        if (entity.getType().isText()) {
+            textEntities.add(entity);
+        }
+    }
+
+    /**
+     * Applies every change of the given batch as if they were made in order, but moves each changed entity at most
+     * once and gives every changed cell one new version for the whole batch. A cell that an entity entered and left
+     * again within the batch is left untouched.
+     *
+     * @param batch the batch of changes to this map
+     */
+    void applyBatch(MapBatch batch) {
+        long batchVersion = ++version;
+        Set<Entity> reinsertedEntities = Set.of();
+        for (int change = 0; change < batch.size(); change++) {
+            if (batch.isRemoval(change) && !batch.isLastChange(change)) {
+                if (reinsertedEntities.isEmpty()) {
+                    reinsertedEntities = Collections.newSetFromMap(new IdentityHashMap<>());
+                }
+                reinsertedEntities.add(batch.getEntity(change));
+            }
+        }
+
+        for (int change = 0; change < batch.size(); change++) {
+            if (!batch.isLastChange(change)) {
+                continue;
+            }
+            Entity entity = batch.getEntity(change);
+            Point oldPosition = entityPositions.get(entity);
+            if (oldPosition != null) {
+                List<Entity> cell = grid.get(oldPosition);
+                cell.remove(entity);
+                if (cell.isEmpty()) {
+                    grid.remove(oldPosition);
+                }
+                touchCell(oldPosition, batchVersion);
+            }
+
+            if (batch.isRemoval(change)) {
+                if (oldPosition != null) {
+                    entityPositions.remove(entity);
+                    unindex(entity);
+                }
+                continue;
+            }
+            Point newPosition = pointAt(batch.getX(change), batch.getY(change));
+            touchCell(newPosition, batchVersion);
+            grid.computeIfAbsent(newPosition, k -> new ArrayList<>()).add(entity);
+            entityPositions.put(entity, newPosition);
+            if (oldPosition != null && reinsertedEntities.contains(entity)) {
+                unindex(entity);
+                oldPosition = null;
+            }
+            if (oldPosition == null) {
+                entitiesById.putIfAbsent(entity.getEntityId(), entity);
+                entitiesByType.computeIfAbsent(entity.getType(), k -> new LinkedHashSet<>()).add(entity);
+                if (entity.getType().isText()) {
+                    textEntities.add(entity);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes an entity from the text, id and type indexes.
+     *
+     * @param entity the entity leaving the map
+     */
+    private void unindex(Entity entity) {
+        textEntities.remove(entity);
+        entitiesById.remove(entity.getEntityId());
+        Set<Entity> sameType = entitiesByType.get(entity.getType());
+        sameType.remove(entity);
+        if (sameType.isEmpty()) {
+            entitiesByType.remove(entity.getType());
+        }
+    }
+
+    /**
+     * Returns the point of the given cell. Points of cells inside the map are shared, so placing an entity there
+     * allocates nothing; the returned point must not be modified.
+     *
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @return the point of the cell
+     */
+    private Point pointAt(int x, int y) {
+        if (!isInside(x, y)) {
+            return new Point(x, y);
+        }
+        if (cellPoints == null) {
+            cellPoints = new Point[width * height];
+        }
+        Point point = cellPoints[y * width + x];
+        if (point == null) {
+            point = new Point(x, y);
+            cellPoints[y * width + x] = point;
+        }
+        return point;
     }
 
     /**
@@ -126,11 +263,7 @@ public class LevelMap {
      * @throws IllegalStateException if the entity is not found on the map.
      */
     public Point getPosition(Entity entity) {
-        Point position = entityPositions.get(entity);
-        if (position == null) {
-            throw new IllegalStateException("Entity not found in map: " + entity.getEntityId());
-        }
-        return new Point(position);
+        return new Point(storedPosition(entity));
     }
 
     /** Get the X coordinate of an entity on the map.
@@ -140,7 +273,7 @@ public class LevelMap {
      * @throws IllegalStateException if the entity is not found on the map.
      */
     public int getX(Entity entity) {
-        return getPosition(entity).x;
+        return storedPosition(entity).x;
     }
 
     /** Get the Y coordinate of an entity on the map.
@@ -150,7 +283,161 @@ public class LevelMap {
      * @throws IllegalStateException if the entity is not found on the map.
      */
     public int getY(Entity entity) {
-        return getPosition(entity).y;
+        return storedPosition(entity).y;
+    }
+
+    /**
+     * Returns the version of a cell, which changes every time an entity enters or leaves it.
+     * Versions only grow, so a cached result about a cell stays valid while its version is unchanged.
+     *
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @return the cell version, or {@code 0} if the cell was never changed or is outside the map
+     */
+    public long getCellVersion(int x, int y) {
+        if (cellVersions == null || !isInside(x, y)) {
+            return 0L;
+        }
+        return cellVersions[y * width + x];
+    }
+
+    /**
+     * Returns the number of cell changes made so far, to later ask which cells changed since with
+     * {@link #forEachCellChangedSince(long, IntConsumer)}.
+     *
+     * @return the change count
+     */
+    public long getChangeCount() {
+        return changeCount;
+    }
+
+    /**
+     * Visits the cells changed since the map had the given change count, as {@code y * width + x}. A cell is visited
+     * once per change, and only the latest {@code width * height} changes are remembered.
+     *
+     * @param since  a change count returned by {@link #getChangeCount()}
+     * @param action the action to run for each changed cell
+     * @return {@code false} without visiting anything if some of the changes are no longer remembered
+     */
+    public boolean forEachCellChangedSince(long since, IntConsumer action) {
+        if (since == changeCount) {
+            return true;
+        }
+        if (since > changeCount || changeCount - since > changeJournal.length) {
+            return false;
+        }
+        for (long change = since; change < changeCount; change++) {
+            action.accept(changeJournal[(int) (change % changeJournal.length)]);
+        }
+        return true;
+    }
+
+    /**
+     * Gives the cell a new version. The version array and the change journal are only allocated on the first change.
+     *
+     * @param position the changed cell
+     */
+    private void touchCell(Point position) {
+        if (isInside(position.x, position.y)) {
+            touchCell(position, ++version);
+        }
+    }
+
+    /**
+     * Gives the cell the given version, and marks it as changed since the tracked snapshot.
+     *
+     * @param position   the changed cell
+     * @param newVersion the new version of the cell
+     */
+    private void touchCell(Point position, long newVersion) {
+        if (!isInside(position.x, position.y)) {
+            return;
+        }
+        if (cellVersions == null) {
+            cellVersions = new long[width * height];
+            changeJournal = new int[width * height];
+        }
+        cellVersions[position.y * width + position.x] = newVersion;
+        changeJournal[(int) (changeCount++ % changeJournal.length)] = position.y * width + position.x;
+        if (changedCells != null) {
+            changedCells.set(position.y * width + position.x);
+        }
+    }
+
+    /**
+     * Takes an immutable snapshot of the current entities and starts tracking the cells changed since, so the
+     * snapshot can later be restored by only rebuilding those cells. Only the latest snapshot of a map is tracked.
+     *
+     * @return the snapshot of the map
+     */
+    public LevelSnapshot snapshot() {
+        Map<Point, List<Entity>> cells = new HashMap<>();
+        for (Map.Entry<Point, List<Entity>> cell : grid.entrySet()) {
+            cells.put(new Point(cell.getKey()), List.copyOf(cell.getValue()));
+        }
+        Entity[] entities = entityPositions.keySet().toArray(new Entity[0]);
+        Direction[] directions = new Direction[entities.length];
+        for (int i = 0; i < entities.length; i++) {
+            directions[i] = entities[i].getDirection();
+        }
+        trackedSnapshot = new LevelSnapshot(this, Collections.unmodifiableMap(cells), entities, directions);
+        changedCells = new BitSet(width * height);
+        return trackedSnapshot;
+    }
+
+    /**
+     * Brings the map back to the given snapshot and starts a new epoch.
+     * <p>Only the cells changed since the snapshot are rebuilt, in their original order, and the snapshot's entities
+     * get their directions back; the rest of the map is left untouched.</p>
+     *
+     * @param snapshot the latest snapshot taken from this map
+     * @throws IllegalArgumentException if the snapshot is not the latest one taken from this map
+     */
+    public void restore(LevelSnapshot snapshot) {
+        if (snapshot != trackedSnapshot || snapshot.getLevelMap() != this) {
+            throw new IllegalArgumentException("Only the latest snapshot of this map can be restored");
+        }
+        BitSet cellsToRebuild = changedCells;
+        changedCells = null;
+        for (int index = cellsToRebuild.nextSetBit(0); index >= 0; index = cellsToRebuild.nextSetBit(index + 1)) {
+            for (Entity entity : List.copyOf(getEntitiesAt(index % width, index / width))) {
+                removeEntity(entity);
+            }
+        }
+        for (int index = cellsToRebuild.nextSetBit(0); index >= 0; index = cellsToRebuild.nextSetBit(index + 1)) {
+            Point position = new Point(index % width, index / width);
+            for (Entity entity : snapshot.getEntitiesAt(position)) {
+                setPosition(entity, position.x, position.y);
+            }
+        }
+        snapshot.restoreDirections();
+        cellsToRebuild.clear();
+        changedCells = cellsToRebuild;
+        epoch++;
+    }
+
+    /**
+     * Returns the number of times a snapshot was restored on this map.
+     *
+     * @return the current epoch
+     */
+    public int getEpoch() {
+        return epoch;
+    }
+
+    /**
+     * Returns the stored position of an entity without copying it. The returned point must not be modified.
+     *
+     * @param entity the entity whose position is to be retrieved
+     * @return the position held by the map
+     * @throws IllegalStateException if the entity is not found on the map
+     */
+    private Point storedPosition(Entity entity) {
+        Point position = entityPositions.get(entity);
+        if (position == null) {
+            throw new IllegalStateException("Entity not found in map: " + entity.getEntityId());
+        }
+        return position;
     }
 
     /** Get all entities at a specific position on the map.
@@ -163,6 +450,15 @@ public class LevelMap {
         return grid.getOrDefault(new Point(x, y), List.of());
     }
 
+    /**
+     * Returns the positions of all cells that hold at least one entity.
+     *
+     * @return an unmodifiable view of the occupied positions
+     */
+    public Set<Point> getOccupiedPositions() {
+        return Collections.unmodifiableSet(grid.keySet());
+    }
+
     /**
      * Returns all entities at the given {@link java.awt.Point} position on the map.
      *
@@ -181,6 +477,66 @@ public class LevelMap {
         return new ArrayList<>(entityPositions.keySet());
     }
 
+    /**
+     * Returns the number of entities on the map without copying them.
+     *
+     * @return the entity count
+     */
+    public int getEntityCount() {
+        return entityPositions.size();
+    }
+
+    /**
+     * Returns all entities of exactly the given type. The set is kept up to date as entities are added and removed.
+     *
+     * @param type the entity type to look up
+     * @return an unmodifiable view of the entities of that type, empty if there are none
+     */
+    public Set<Entity> getEntitiesOfType(EntityType type) {
+        Set<Entity> sameType = entitiesByType.get(type);
+        return sameType != null ? Collections.unmodifiableSet(sameType) : Set.of();
+    }
+
+    /**
+     * Returns all text entities on the map. The set is kept up to date as entities are added and removed.
+     *
+     * @return an unmodifiable view of the text entities on the map
+     */
+    public Set<Entity> getTextEntities() {
+        return Collections.unmodifiableSet(textEntities);
+    }
+
+    /**
+     * Returns the estimated heap memory retained by the map: its entities, the cells and indexes holding them,
+     * the cell versions, the change journal and the tracked snapshot.
+     *
+     * @return the estimated memory usage in bytes
+     */
+    public long getMemoryUsage() {
+        long bytes = (long) grid.size() * (ENTRY_BYTES + LIST_BYTES)
+                + (long) entityPositions.size() * (ENTITY_BYTES + Integer.BYTES + 3L * ENTRY_BYTES)
+                + (long) textEntities.size() * ENTRY_BYTES
+                + (long) entitiesByType.size() * 2 * ENTRY_BYTES;
+        if (cellVersions != null) {
+            bytes += 2 * ARRAY_BYTES + (long) cellVersions.length * (Long.BYTES + Integer.BYTES);
+        }
+        if (cellPoints != null) {
+            bytes += ARRAY_BYTES + (long) cellPoints.length * Integer.BYTES;
+            for (Point point : cellPoints) {
+                if (point != null) {
+                    bytes += POINT_BYTES;
+                }
+            }
+        }
+        if (changedCells != null) {
+            bytes += ARRAY_BYTES + changedCells.size() / Byte.SIZE;
+        }
+        if (trackedSnapshot != null) {
+            bytes += trackedSnapshot.getMemoryUsage();
+        }
+        return bytes;
+    }
+
     /**
      * Finds an entity on the map by its UUID.
      *
@@ -188,9 +544,6 @@ public class LevelMap {
      * @return the entity with the given UUID, or {@code null} if not found
      */
     public Entity getEntityById(UUID entityId) {
-        return entityPositions.keySet().stream()
-                .filter(e -> e.getEntityId().equals(entityId))
-                .findFirst()
-                .orElse(null);
+        return entitiesById.get(entityId);
     }
 }
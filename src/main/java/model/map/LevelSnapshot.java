@@ -0,0 +1,77 @@
+package model.map;
+
+import model.entity.Direction;
+import model.entity.Entity;
+
+import java.awt.*;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable record of the entities of a {@link LevelMap} at one moment, taken with {@link LevelMap#snapshot()}.
+ * <p>It holds the entity objects of the map themselves, in the order of each cell, along with the direction each
+ * entity faced, so restoring it brings back the very same entities and anything derived from them, such as the rules,
+ * stays valid.</p>
+ */
+public final class LevelSnapshot {
+    private final LevelMap levelMap;
+    private final Map<Point, List<Entity>> cells;
+    private final Entity[] entities;
+    private final Direction[] directions;
+
+    /**
+     * Creates a snapshot from already copied data.
+     *
+     * @param levelMap   the map the snapshot was taken from
+     * @param cells      an unmodifiable copy of every occupied cell
+     * @param entities   every entity of the map
+     * @param directions the direction of each entity, in the same order
+     */
+    LevelSnapshot(LevelMap levelMap, Map<Point, List<Entity>> cells, Entity[] entities, Direction[] directions) {
+        this.levelMap = levelMap;
+        this.cells = cells;
+        this.entities = entities;
+        this.directions = directions;
+    }
+
+    LevelMap getLevelMap() {
+        return levelMap;
+    }
+
+    /**
+     * Returns the entities of the given cell at the time of the snapshot.
+     *
+     * @param position the cell to look up
+     * @return the entities of the cell in order, empty if it was not occupied
+     */
+    List<Entity> getEntitiesAt(Point position) {
+        return cells.getOrDefault(position, List.of());
+    }
+
+    /** Turns every entity of the snapshot back to the direction it faced when the snapshot was taken. */
+    void restoreDirections() {
+        for (int i = 0; i < entities.length; i++) {
+            entities[i].setDirection(directions[i]);
+        }
+    }
+
+    /**
+     * Returns the estimated heap memory retained by the snapshot, not counting the entities it shares with the map.
+     *
+     * @return the estimated memory usage in bytes
+     */
+    long getMemoryUsage() {
+        return (long) cells.size() * (LevelMap.ENTRY_BYTES + LevelMap.POINT_BYTES + LevelMap.ARRAY_BYTES)
+                + 2L * LevelMap.ARRAY_BYTES
+                + (long) entities.length * 3 * Integer.BYTES;
+    }
+
+    /**
+     * Returns the number of entities in the snapshot.
+     *
+     * @return the entity count
+     */
+    public int getEntityCount() {
+        return entities.length;
+    }
+}
@@ -0,0 +1,164 @@
+package model.map;
+
+import model.entity.Entity;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A group of placements and removals that is applied to a {@link LevelMap} in one mutation.
+ * <p>Changes are only recorded until {@link #apply()} is called, and the positions read through the batch already
+ * reflect them. Applying the batch has the same result as making every change on the map in order, but each entity
+ * leaves and enters a cell at most once, its type and id indexes are updated at most once, and every changed cell gets
+ * a single new version.</p>
+ */
+public final class MapBatch {
+    private final LevelMap levelMap;
+    private Entity[] entities = new Entity[16];
+    private int[] xs = new int[16];
+    private int[] ys = new int[16];
+    private boolean[] removals = new boolean[16];
+    private int size;
+    private final Map<Entity, Integer> lastChanges = new IdentityHashMap<>();
+
+    /**
+     * Creates an empty batch of changes to the given map.
+     *
+     * @param levelMap the map the changes are applied to
+     */
+    public MapBatch(LevelMap levelMap) {
+        this.levelMap = levelMap;
+    }
+
+    /**
+     * Returns the map the changes are applied to.
+     *
+     * @return the level map
+     */
+    public LevelMap getLevelMap() {
+        return levelMap;
+    }
+
+    /**
+     * Places an entity on the given cell, or moves it there if it is already on the map.
+     *
+     * @param entity the entity to place or move
+     * @param x      the x-coordinate
+     * @param y      the y-coordinate
+     */
+    public void setPosition(Entity entity, int x, int y) {
+        add(entity, x, y, false);
+    }
+
+    /**
+     * Removes an entity from the map. Removing an entity that is not on the map does nothing.
+     *
+     * @param entity the entity to remove
+     */
+    public void removeEntity(Entity entity) {
+        add(entity, 0, 0, true);
+    }
+
+    /**
+     * Returns the X coordinate of an entity, taking the changes of the batch into account.
+     *
+     * @param entity the entity to look up
+     * @return the X coordinate of the entity once the batch is applied
+     * @throws IllegalStateException if the entity will not be on the map
+     */
+    public int getX(Entity entity) {
+        Integer change = lastChanges.get(entity);
+        if (change == null) {
+            return levelMap.getX(entity);
+        }
+        requirePlaced(entity, change);
+        return xs[change];
+    }
+
+    /**
+     * Returns the Y coordinate of an entity, taking the changes of the batch into account.
+     *
+     * @param entity the entity to look up
+     * @return the Y coordinate of the entity once the batch is applied
+     * @throws IllegalStateException if the entity will not be on the map
+     */
+    public int getY(Entity entity) {
+        Integer change = lastChanges.get(entity);
+        if (change == null) {
+            return levelMap.getY(entity);
+        }
+        requirePlaced(entity, change);
+        return ys[change];
+    }
+
+    /**
+     * Returns whether the batch holds no change.
+     *
+     * @return {@code true} if applying the batch would do nothing
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Applies every recorded change to the map and empties the batch, so it can be reused. */
+    public void apply() {
+        if (size > 0) {
+            levelMap.applyBatch(this);
+        }
+        Arrays.fill(entities, 0, size, null);
+        size = 0;
+        lastChanges.clear();
+    }
+
+    int size() {
+        return size;
+    }
+
+    Entity getEntity(int change) {
+        return entities[change];
+    }
+
+    int getX(int change) {
+        return xs[change];
+    }
+
+    int getY(int change) {
+        return ys[change];
+    }
+
+    boolean isRemoval(int change) {
+        return removals[change];
+    }
+
+    /**
+     * Returns whether the given change is the last one of its entity, which decides where the entity ends up.
+     *
+     * @param change the index of the change
+     * @return {@code true} if no later change of the batch concerns the same entity
+     */
+    boolean isLastChange(int change) {
+        return lastChanges.get(entities[change]) == change;
+    }
+
+    private void add(Entity entity, int x, int y, boolean isRemoval) {
+        if (size == entities.length) {
+            entities = Arrays.copyOf(entities, size * 2);
+            xs = Arrays.copyOf(xs, size * 2);
+            ys = Arrays.copyOf(ys, size * 2);
+            removals = Arrays.copyOf(removals, size * 2);
+        }
+        entities[size] = entity;
+        xs[size] = x;
+        ys[size] = y;
+        removals[size] = isRemoval;
+        lastChanges.put(entity, size);
+        size++;
+    }
+
+    private void requirePlaced(Entity entity, int change) {
+        if (removals[change]) {
+            throw new IllegalStateException("Entity not found in map: " + entity.getEntityId());
+        }
+    }
+}
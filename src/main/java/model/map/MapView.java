@@ -0,0 +1,145 @@
+package model.map;
+
+import model.entity.Entity;
+import model.entity.EntityType;
+
+import java.awt.*;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * The entities of a map and where they stand, as read by the rule evaluators.
+ * <p>Implemented by {@link LevelMap} and by overlays that track tentative moves on top of one without changing it.
+ * Snapshots, versions and batches belong to {@link LevelMap} alone.</p>
+ */
+public interface MapView {
+    /**
+     * Returns the number of columns in this map.
+     *
+     * @return the width
+     */
+    int getWidth();
+
+    /**
+     * Returns the number of rows in this map.
+     *
+     * @return the height
+     */
+    int getHeight();
+
+    /**
+     * Returns whether the given grid coordinate is within the map bounds.
+     *
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @return {@code true} if the coordinate is inside the map
+     */
+    boolean isInside(int x, int y);
+
+    /**
+     * Removes an entity from the map.
+     *
+     * @param entity the entity to remove
+     */
+    void removeEntity(Entity entity);
+
+    /**
+     * Places an entity on the map, or moves it if it is already there.
+     *
+     * @param entity the entity to place or move
+     * @param newX   the new x-coordinate
+     * @param newY   the new y-coordinate
+     */
+    void setPosition(Entity entity, int newX, int newY);
+
+    /**
+     * Returns the position of an entity on the map.
+     *
+     * @param entity the entity to look up
+     * @return a copy of its position
+     * @throws IllegalStateException if the entity is not on the map
+     */
+    Point getPosition(Entity entity);
+
+    /**
+     * Returns the x-coordinate of an entity on the map.
+     *
+     * @param entity the entity to look up
+     * @return its x-coordinate
+     * @throws IllegalStateException if the entity is not on the map
+     */
+    int getX(Entity entity);
+
+    /**
+     * Returns the y-coordinate of an entity on the map.
+     *
+     * @param entity the entity to look up
+     * @return its y-coordinate
+     * @throws IllegalStateException if the entity is not on the map
+     */
+    int getY(Entity entity);
+
+    /**
+     * Returns the entities in a cell, in stacking order.
+     *
+     * @param x the x-coordinate
+     * @param y the y-coordinate
+     * @return the entities at that position, empty if there are none
+     */
+    List<Entity> getEntitiesAt(int x, int y);
+
+    /**
+     * Returns the entities in a cell, in stacking order.
+     *
+     * @param position the position to query
+     * @return the entities at that position, empty if there are none
+     */
+    default List<Entity> getEntitiesAt(Point position) {
+        return getEntitiesAt(position.x, position.y);
+    }
+
+    /**
+     * Returns the positions of all cells that hold at least one entity.
+     *
+     * @return an unmodifiable set of the occupied positions
+     */
+    Set<Point> getOccupiedPositions();
+
+    /**
+     * Returns all entities on the map.
+     *
+     * @return a new list of the entities
+     */
+    List<Entity> getEntities();
+
+    /**
+     * Returns the number of entities on the map without copying them.
+     *
+     * @return the entity count
+     */
+    int getEntityCount();
+
+    /**
+     * Returns all entities of exactly the given type.
+     *
+     * @param type the entity type to look up
+     * @return an unmodifiable set of the entities of that type, empty if there are none
+     */
+    Set<Entity> getEntitiesOfType(EntityType type);
+
+    /**
+     * Returns all text entities on the map.
+     *
+     * @return an unmodifiable set of the text entities
+     */
+    Set<Entity> getTextEntities();
+
+    /**
+     * Finds an entity on the map by its UUID.
+     *
+     * @param entityId the UUID to search for
+     * @return the entity with the given UUID, or {@code null} if not found
+     */
+    Entity getEntityById(UUID entityId);
+}
@@ -8,6 +8,9 @@ import utils.ImageUtils;
  * Represents a visual particle effect with position, velocity, type, and color.
  */
 public class Particle {
+    /** Estimated heap bytes of a particle; its tinted image is shared through the cache of {@link ImageUtils}. */
+    public static final int PARTICLE_BYTES = 88;
+
     private double x;
     private double y;
     private final double originalX;
@@ -6,6 +6,7 @@ import model.entity.word.EffectType;
 import model.entity.word.NounType;
 import model.entity.word.VerbType;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -99,6 +100,23 @@ public class Rule {
         return conditions;
     }
 
+    /**
+     * Returns every text entity that forms this rule: subject, verb, effect and all condition words.
+     *
+     * @return the list of word entities of this rule
+     */
+    public List<Entity> getWordEntities() {
+        List<Entity> words = new ArrayList<>();
+        words.add(subjectText);
+        words.add(verbText);
+        words.add(effectText);
+        for (Condition condition : conditions) {
+            words.add(condition.getConditionText());
+            words.add(condition.getParameterText());
+        }
+        return words;
+    }
+
     /**
      * Returns a unique string signature based on the entity IDs of the subject, verb, effect, and conditions.
      * Used for deduplication and equality checks.
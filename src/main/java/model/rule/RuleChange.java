@@ -0,0 +1,13 @@
+package model.rule;
+
+/**
+ * Describes how the rule list changed when a {@link Ruleset} was updated.
+ */
+public enum RuleChange {
+    /** The new rule list is equal to the previous one. */
+    UNCHANGED,
+    /** The new rule list has at least as many rules as the previous one. */
+    GROWN,
+    /** The new rule list has fewer rules than the previous one. */
+    SHRUNK
+}
@@ -1,41 +1,109 @@
 package model.rule;
 
-import application.Audio;
 import model.entity.Entity;
+import model.entity.EntityType;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * Represents a collection of rules.
+ * <p>The set of active text entities (and its complement among all text entities on the map)
+ * is kept up to date whenever the rules change, so it can be read every frame without recomputation.</p>
  */
 public class Ruleset {
+    /** Estimated bytes of a hash map or hash set entry, including its share of the bucket table. */
+    private static final int ENTRY_BYTES = 40;
+    /** Estimated bytes of a rule, besides its conditions. */
+    private static final int RULE_BYTES = 48;
+    /** Estimated bytes of a condition. */
+    private static final int CONDITION_BYTES = 32;
+    /** Estimated bytes of a list, besides one reference per element. */
+    private static final int LIST_BYTES = 40;
+
     private final ArrayList<Rule> rules;
+    private final Map<EntityType, List<Rule>> rulesByEffect;
+    private final Map<Entity, Integer> activeTextCounts;
+    private final Set<Entity> textEntities;
+    private final Set<Entity> inactiveTexts;
+    private int version;
+    private long fingerprint;
 
     public Ruleset() {
         rules = new ArrayList<>();
+        fingerprint = computeFingerprint(rules);
+        rulesByEffect = new HashMap<>();
+        activeTextCounts = new HashMap<>();
+        textEntities = new HashSet<>();
+        inactiveTexts = new HashSet<>();
     }
 
     /**
-     * Replaces the current rule list with the given one, playing a sound to indicate growth or shrinkage.
+     * Replaces the current rule list with the given one.
      * Does nothing if the new list equals the current one.
      *
      * @param ruleList the new list of rules
+     * @return whether the rule list stayed the same, grew or shrank
      */
-    public void setRules(List<Rule> ruleList) {
+    public RuleChange setRules(List<Rule> ruleList) {
         if(ruleList.equals(rules)) {
-            return;
-        }
-        else if(ruleList.size() >= rules.size()) {
-            Audio.playSfx("sound/SFX/confirm.wav");
-        }
-        else {
-            Audio.playSfx("sound/SFX/negative.wav");
+            return RuleChange.UNCHANGED;
         }
+        RuleChange ruleChange = ruleList.size() >= rules.size() ? RuleChange.GROWN : RuleChange.SHRUNK;
+        updateActiveTexts(ruleList);
         rules.clear();
         rules.addAll(ruleList);
+        rulesByEffect.clear();
+        for (Rule rule : rules) {
+            rulesByEffect.computeIfAbsent(rule.getEffect(), k -> new ArrayList<>()).add(rule);
+        }
+        fingerprint = computeFingerprint(rules);
+        version++;
+        return ruleChange;
+    }
+
+    /**
+     * Returns a 64-bit fingerprint of the rule list, derived from the ids of the word entities of every rule in order.
+     * Two rule lists with the same fingerprint are treated as equal; the fingerprint is only recomputed when the rules change.
+     *
+     * @return the fingerprint of the current rules
+     */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Hashes the word entity ids of the given rules in order, marking the end of each rule.
+     *
+     * @param ruleList the rules to hash
+     * @return the fingerprint of the rule list
+     */
+    private static long computeFingerprint(List<Rule> ruleList) {
+        long hash = mix(ruleList.size());
+        for (Rule rule : ruleList) {
+            for (Entity word : rule.getWordEntities()) {
+                hash = mix(hash ^ word.getEntityId().getMostSignificantBits());
+                hash = mix(hash ^ word.getEntityId().getLeastSignificantBits());
+            }
+            hash = mix(hash + 0x9E3779B97F4A7C15L);
+        }
+        return hash;
+    }
+
+    /** The 64-bit finalizer of MurmurHash3, which spreads every input bit over the whole result. */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
     }
 
     /**
@@ -47,23 +115,112 @@ public class Ruleset {
         return rules;
     }
 
+    /**
+     * Returns a counter that changes every time the rule list changes, so results derived from the rules can be cached.
+     *
+     * @return the rule list version
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the rules whose effect is the given type, in rule order.
+     * For example, the rules with effect MOVE are every "X IS MOVE", and the rules with effect Y
+     * include every "X EXTEND Y".
+     *
+     * @param effect the effect type to look up
+     * @return an unmodifiable list of matching rules, empty if there are none
+     */
+    public List<Rule> getRulesWithEffect(EntityType effect) {
+        List<Rule> matchingRules = rulesByEffect.get(effect);
+        return matchingRules != null ? Collections.unmodifiableList(matchingRules) : List.of();
+    }
+
+    /**
+     * Replaces the set of text entities currently on the map, which is used to derive the inactive texts.
+     * Should be called whenever text entities were created or destroyed.
+     *
+     * @param texts all text entities on the map
+     */
+    public void setTextEntities(Collection<Entity> texts) {
+        textEntities.clear();
+        textEntities.addAll(texts);
+        inactiveTexts.clear();
+        for (Entity text : textEntities) {
+            if (!activeTextCounts.containsKey(text)) {
+                inactiveTexts.add(text);
+            }
+        }
+    }
+
     /**
      * Returns the set of all text entities that are part of at least one active rule.
      * Used to visually distinguish active from inactive text tiles.
      *
-     * @return the set of active text entities
+     * @return an unmodifiable view of the active text entities
      */
     public Set<Entity> getActiveTexts() {
-        Set<Entity> activeEntities = new HashSet<>();
+        return Collections.unmodifiableSet(activeTextCounts.keySet());
+    }
+
+    /**
+     * Returns the set of text entities on the map that are not part of any active rule.
+     *
+     * @return an unmodifiable view of the inactive text entities
+     */
+    public Set<Entity> getInactiveTexts() {
+        return Collections.unmodifiableSet(inactiveTexts);
+    }
+
+    /**
+     * Returns the estimated heap memory retained by the ruleset: its rules and conditions, the rules indexed by effect,
+     * and the sets of active and inactive texts. The text entities themselves belong to the map.
+     *
+     * @return the estimated memory usage in bytes
+     */
+    public long getMemoryUsage() {
+        long bytes = LIST_BYTES + (long) rules.size() * (Integer.BYTES + RULE_BYTES + LIST_BYTES);
         for (Rule rule : rules) {
-            activeEntities.add(rule.getEffectText());
-            activeEntities.add(rule.getSubjectText());
-            activeEntities.add(rule.getVerbText());
-            for(Condition condition : rule.getConditions()) {
-                activeEntities.add(condition.getConditionText());
-                activeEntities.add(condition.getParameterText());
+            bytes += (long) rule.getConditions().size() * (Integer.BYTES + CONDITION_BYTES);
+        }
+        bytes += (long) rulesByEffect.size() * (ENTRY_BYTES + LIST_BYTES) + (long) rules.size() * Integer.BYTES;
+        bytes += (long) (activeTextCounts.size() + textEntities.size() + inactiveTexts.size()) * ENTRY_BYTES;
+        return bytes;
+    }
+
+    /**
+     * Applies the difference between the current rules and the new ones to the active text counts,
+     * moving texts between the active and inactive sets when they join or leave their last rule.
+     *
+     * @param ruleList the new list of rules
+     */
+    private void updateActiveTexts(List<Rule> ruleList) {
+        Set<Rule> oldRules = new HashSet<>(rules);
+        Set<Rule> newRules = new HashSet<>(ruleList);
+
+        for (Rule rule : oldRules) {
+            if (newRules.contains(rule)) {
+                continue;
+            }
+            for (Entity text : rule.getWordEntities()) {
+                int count = activeTextCounts.merge(text, -1, Integer::sum);
+                if (count <= 0) {
+                    activeTextCounts.remove(text);
+                    if (textEntities.contains(text)) {
+                        inactiveTexts.add(text);
+                    }
+                }
+            }
+        }
+        for (Rule rule : newRules) {
+            if (oldRules.contains(rule)) {
+                continue;
+            }
+            for (Entity text : rule.getWordEntities()) {
+                activeTextCounts.merge(text, 1, Integer::sum);
+                inactiveTexts.remove(text);
             }
         }
-        return activeEntities;
     }
-}
\ No newline at end of file
+}
@@ -19,7 +19,6 @@ import java.awt.Point;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import static application.Constant.*;
 
@@ -31,6 +30,10 @@ public class PlayingState implements GameState {
     private final LevelController levelController;
     private final List<Particle> particles;
 
+    private boolean isTimelineOpen = false;
+    private int timelineStartTurn = 0;
+    private int scrubHeldFrames = 0;
+
     private static final ColorAdjust INACTIVE_TEXT_EFFECT = new ColorAdjust();
     static {
         INACTIVE_TEXT_EFFECT.setSaturation(-0.5);
@@ -55,6 +58,15 @@ public class PlayingState implements GameState {
         particles.add(particle);
     }
 
+    /**
+     * Returns the estimated heap memory retained by the live particles.
+     *
+     * @return the estimated memory usage in bytes
+     */
+    public long getParticleMemoryUsage() {
+        return (long) particles.size() * (Particle.PARTICLE_BYTES + Integer.BYTES);
+    }
+
     /**
      * Returns the level controller managing the current level.
      *
@@ -79,7 +91,7 @@ public class PlayingState implements GameState {
     public void onExit() {
     }
 
-    /** {@inheritDoc} Updates particles, processes win, runs level logic, and handles menu input. */
+    /** {@inheritDoc} Updates particles, processes win, runs level logic or the undo timeline, and handles menu input. */
     @Override
     public void update() {
         particles.removeIf(Particle::isDead);
@@ -89,9 +101,20 @@ public class PlayingState implements GameState {
             return; // Controls disabled during win animation
         }
 
+        InputCommand playerInput = InputUtility.getTriggered();
+        if (isTimelineOpen) {
+            updateTimeline(playerInput);
+            return;
+        }
+        if (playerInput == InputCommand.TIMELINE) {
+            isTimelineOpen = true;
+            timelineStartTurn = levelController.getHistoryTurn();
+            scrubHeldFrames = 0;
+            return;
+        }
+
         levelController.update(this);
 
-        InputCommand playerInput = InputUtility.getTriggered();
         if (playerInput == InputCommand.MENU) {
             Audio.playSfx("sound/SFX/esc.wav");
             GameController.getInstance().setState(GameStateEnum.PAUSED);
@@ -105,7 +128,76 @@ public class PlayingState implements GameState {
     }
 
     /**
-     * Renders the game state including background, entities, and particles.
+     * Scrubs through the undo history while the timeline is open. Left and right step one turn, and scrub faster the
+     * longer they are held; up and down jump to the end and the start of the history. The timeline closes on the shown
+     * turn with the timeline or trigger key, or goes back to the turn it was opened on with the menu key.
+     * Frames without a seek are spent preparing the turns around the shown one.
+     *
+     * @param playerInput the command triggered this frame
+     */
+    private void updateTimeline(InputCommand playerInput) {
+        switch (playerInput) {
+            case TIMELINE, TRIGGER -> {
+                isTimelineOpen = false;
+                return;
+            }
+            case MENU -> {
+                levelController.jumpToTurn(timelineStartTurn);
+                isTimelineOpen = false;
+                return;
+            }
+            case MOVE_UP -> {
+                levelController.jumpToTurn(levelController.getHistorySize());
+                return;
+            }
+            case MOVE_DOWN -> {
+                levelController.jumpToTurn(0);
+                return;
+            }
+            default -> {
+            }
+        }
+
+        int currentTurn = levelController.getHistoryTurn();
+        int turn = Math.clamp((long) currentTurn + getScrubStep(playerInput), 0, levelController.getHistorySize());
+        if (turn != currentTurn) {
+            levelController.jumpToTurn(turn);
+        } else {
+            levelController.prefetchHistory(TIMELINE_PREFETCH_BUDGET_NANOS);
+        }
+    }
+
+    /**
+     * Returns how many turns to scrub this frame. A key press steps one turn; holding the key repeats after
+     * {@link application.Constant#TIMELINE_REPEAT_DELAY_FRAMES} frames and speeds up by one turn per frame every
+     * {@link application.Constant#TIMELINE_ACCELERATION_FRAMES} frames.
+     *
+     * @param playerInput the command triggered this frame
+     * @return the signed number of turns to move
+     */
+    private int getScrubStep(InputCommand playerInput) {
+        if (playerInput == InputCommand.MOVE_LEFT || playerInput == InputCommand.MOVE_RIGHT) {
+            scrubHeldFrames = 0;
+            return playerInput == InputCommand.MOVE_LEFT ? -1 : 1;
+        }
+        int direction = switch (InputUtility.getPressed()) {
+            case MOVE_LEFT -> -1;
+            case MOVE_RIGHT -> 1;
+            default -> 0;
+        };
+        if (direction == 0) {
+            scrubHeldFrames = 0;
+            return 0;
+        }
+        scrubHeldFrames++;
+        if (scrubHeldFrames < TIMELINE_REPEAT_DELAY_FRAMES) {
+            return 0;
+        }
+        return direction * (1 + (scrubHeldFrames - TIMELINE_REPEAT_DELAY_FRAMES) / TIMELINE_ACCELERATION_FRAMES);
+    }
+
+    /**
+     * Renders the game state including background, entities, particles, and the undo timeline when it is open.
      *
      * @param gc the graphics context to render on
      */
@@ -124,6 +216,9 @@ public class PlayingState implements GameState {
 
         renderEntities(gc, offset);
         renderParticles(gc, offset);
+        if (isTimelineOpen) {
+            renderTimeline(gc);
+        }
     }
 
     /**
@@ -134,10 +229,7 @@ public class PlayingState implements GameState {
      * @param offset the pixel offset to center the level on the canvas
      */
     private void renderEntities(GraphicsContext gc, Point offset) {
-        Set<Entity> activeTexts = levelController.getRuleset().getActiveTexts();
-        Set<Entity> inactiveTexts = levelController.getLevelMap().getEntities().stream()
-                .filter(e -> e.getType().isText() && !activeTexts.contains(e))
-                .collect(Collectors.toSet());
+        Set<Entity> inactiveTexts = levelController.getRuleset().getInactiveTexts();
 
         GraphicUtils.renderEntities(
                 gc, levelController.getLevelMap(), offset,
@@ -165,4 +257,33 @@ public class PlayingState implements GameState {
             );
         }
     }
+
+    /**
+     * Renders the undo timeline along the bottom of the canvas: the whole history as a track, the applied turns as
+     * a filled bar, a marker on the turn the timeline was opened on, and the shown turn number.
+     *
+     * @param gc the graphics context
+     */
+    private void renderTimeline(GraphicsContext gc) {
+        int turn = levelController.getHistoryTurn();
+        int size = levelController.getHistorySize();
+        double barWidth = gc.getCanvas().getWidth() - 2 * SPRITE_SIZE;
+        double barY = gc.getCanvas().getHeight() - SPRITE_SIZE - TIMELINE_BAR_HEIGHT;
+        Color theme = GameController.getInstance().getColorTheme();
+
+        gc.setFill(theme.interpolate(Color.BLACK, 0.6));
+        gc.fillRect(SPRITE_SIZE, barY, barWidth, TIMELINE_BAR_HEIGHT);
+        gc.setFill(theme);
+        gc.fillRect(SPRITE_SIZE, barY, size == 0 ? 0 : barWidth * turn / size, TIMELINE_BAR_HEIGHT);
+
+        double startX = SPRITE_SIZE + (size == 0 ? 0 : barWidth * timelineStartTurn / size);
+        gc.setFill(Color.WHITE);
+        gc.fillRect(startX - 1, barY - 4, 2, TIMELINE_BAR_HEIGHT + 8);
+
+        GraphicUtils.drawText(
+                gc, "TURN " + turn + " / " + size,
+                SPRITE_SIZE, barY - FONT_HEIGHT * TIMELINE_TEXT_SCALE - 4,
+                TIMELINE_TEXT_SCALE
+        );
+    }
 }
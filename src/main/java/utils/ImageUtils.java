@@ -17,6 +17,13 @@ import static application.Constant.SPRITE_SIZE;
  * Utility class for image loading, color manipulation, scaling, and sprite drawing.
  */
 public class ImageUtils {
+    /** Estimated bytes of a cache entry with its key, besides the cached image pixels. */
+    private static final int CACHE_ENTRY_BYTES = 96;
+    /** Estimated bytes of a {@link Color}. */
+    private static final int COLOR_BYTES = 40;
+    /** Estimated bytes of an image object, besides its pixels. */
+    private static final int IMAGE_BYTES = 256;
+
     private static final Map<String, Image> COLOR_CACHE = new HashMap<>();
     private static final Map<Integer, Color> AVERAGE_COLOR_CACHE = new HashMap<>();
     private static final Map<String, Image> SCALE_CACHE = new HashMap<>();
@@ -126,6 +133,48 @@ public class ImageUtils {
         return scaledImage;
     }
 
+    /**
+     * Returns the estimated heap memory retained by the cache of tinted images built by {@link #applyColor(Image, Color)}.
+     *
+     * @return the estimated memory usage in bytes
+     */
+    public static long getColorCacheMemoryUsage() {
+        return getImageCacheMemoryUsage(COLOR_CACHE);
+    }
+
+    /**
+     * Returns the estimated heap memory retained by the cache of average colors computed by {@link #averageColor(Image)}.
+     *
+     * @return the estimated memory usage in bytes
+     */
+    public static long getAverageColorCacheMemoryUsage() {
+        return (long) AVERAGE_COLOR_CACHE.size() * (CACHE_ENTRY_BYTES + COLOR_BYTES);
+    }
+
+    /**
+     * Returns the estimated heap memory retained by the cache of scaled images built by
+     * {@link #scaleNearestNeighbor(Image, double)}.
+     *
+     * @return the estimated memory usage in bytes
+     */
+    public static long getScaleCacheMemoryUsage() {
+        return getImageCacheMemoryUsage(SCALE_CACHE);
+    }
+
+    /**
+     * Sums the estimated size of every entry of an image cache, counting four bytes per pixel.
+     *
+     * @param cache the cache to measure
+     * @return the estimated memory usage in bytes
+     */
+    private static long getImageCacheMemoryUsage(Map<String, Image> cache) {
+        long bytes = 0;
+        for (Image image : cache.values()) {
+            bytes += CACHE_ENTRY_BYTES + IMAGE_BYTES + 4L * (long) image.getWidth() * (long) image.getHeight();
+        }
+        return bytes;
+    }
+
     /**
      * Loads an image from the given classpath resource path.
      *
@@ -326,4 +326,57 @@ class CollisionResolverTest {
         // Should move normally into empty space
         assertEquals(6, levelMap.getX(javaEntity));
     }
+
+    @Test
+    void testResolveCollisionsWithLongPushChain() {
+        levelMap = new LevelMap(5000, 1);
+        Entity javaEntity = setEntityPosition(TypeRegistry.JAVA, 0, 0);
+        List<Entity> pythonEntities = new ArrayList<>();
+        for (int x = 1; x < 4999; x++) {
+            pythonEntities.add(setEntityPosition(TypeRegistry.PYTHON, x, 0));
+        }
+        rule(TypeRegistry.TEXT_JAVA, TypeRegistry.YOU);
+        rule(TypeRegistry.TEXT_PYTHON, TypeRegistry.PUSH);
+
+        MoveIntent intent = new MoveIntent(javaEntity, Direction.RIGHT, false);
+        CompositeAction result = resolveCollisions(List.of(intent));
+        result.execute();
+
+        // The whole line moves, farthest entity first
+        assertEquals(pythonEntities.size() + 1, result.size());
+        assertEquals(1, levelMap.getX(javaEntity));
+        assertEquals(2, levelMap.getX(pythonEntities.getFirst()));
+        assertEquals(4999, levelMap.getX(pythonEntities.getLast()));
+    }
+
+    @Test
+    void testResolveCollisionsOrdersIntentsFrontFirst() {
+        Entity backEntity = setEntityPosition(TypeRegistry.JAVA, 3, 5);
+        Entity middleEntity = setEntityPosition(TypeRegistry.JAVA, 4, 5);
+        Entity frontEntity = setEntityPosition(TypeRegistry.JAVA, 5, 5);
+        rule(TypeRegistry.TEXT_JAVA, TypeRegistry.YOU);
+        rule(TypeRegistry.TEXT_JAVA, TypeRegistry.PUSH);
+
+        CompositeAction result = resolveCollisions(List.of(
+                new MoveIntent(backEntity, Direction.RIGHT, false),
+                new MoveIntent(middleEntity, Direction.RIGHT, false),
+                new MoveIntent(frontEntity, Direction.RIGHT, false)));
+        result.execute();
+
+        // The front entity moves first, so nothing is pushed twice
+        assertEquals(3, result.size());
+        assertEquals(4, levelMap.getX(backEntity));
+        assertEquals(5, levelMap.getX(middleEntity));
+        assertEquals(6, levelMap.getX(frontEntity));
+    }
+
+    @Test
+    void testResolveCollisionsIgnoresIntentsWithoutDirection() {
+        Entity javaEntity = setEntityPosition(TypeRegistry.JAVA, 5, 5);
+        rule(TypeRegistry.TEXT_JAVA, TypeRegistry.YOU);
+
+        CompositeAction result = resolveCollisions(List.of(new MoveIntent(javaEntity, null, false)));
+
+        assertEquals(0, result.size());
+    }
 }
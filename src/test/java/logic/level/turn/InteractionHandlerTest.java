@@ -1,7 +1,11 @@
 package logic.level.turn;
 
 import logic.rule.evaluator.RuleEvaluator;
+import model.action.Action;
 import model.action.CompositeAction;
+import model.action.CreateAction;
+import model.action.DestroyAction;
+import model.action.TransformAction;
 import model.entity.Entity;
 import model.entity.EntityType;
 import model.entity.TypeRegistry;
@@ -254,4 +258,98 @@ class InteractionHandlerTest {
         CompositeAction result = executeInteractions();
         assertEquals(0, result.size());
     }
+
+    @Test
+    void testInteractionsEmittedInCanonicalOrder() {
+        addEntity(TypeRegistry.JAVA, 1, 1);
+        addEntity(TypeRegistry.PYTHON, 1, 1);
+        addEntity(TypeRegistry.DOCUMENT, 8, 8);
+        addEntity(TypeRegistry.FLAG, 4, 4);
+        addEntity(TypeRegistry.WATER, 4, 4);
+        rule(TypeRegistry.TEXT_JAVA, TypeRegistry.IS, TypeRegistry.YOU);
+        rule(TypeRegistry.TEXT_PYTHON, TypeRegistry.IS, TypeRegistry.DEFEAT);
+        rule(TypeRegistry.TEXT_DOCUMENT, TypeRegistry.IS, TypeRegistry.MORE);
+        rule(TypeRegistry.TEXT_FLAG, TypeRegistry.IS, TypeRegistry.SINK);
+        rule(TypeRegistry.TEXT_WATER, TypeRegistry.IS, TypeRegistry.TEXT_JAVA);
+
+        List<Action> actions = executeInteractions().getActions();
+
+        // transform, then MORE, then SINK, then YOU/DEFEAT
+        assertEquals(1 + 4 + 2 + 1, actions.size());
+        assertInstanceOf(TransformAction.class, actions.getFirst());
+        actions.subList(1, 5).forEach(action -> assertInstanceOf(CreateAction.class, action));
+        actions.subList(5, 8).forEach(action -> assertInstanceOf(DestroyAction.class, action));
+        assertEquals(TypeRegistry.JAVA, ((DestroyAction) actions.getLast()).getEntity().getType());
+    }
+
+    @Test
+    void testProcessHasOnlyForDestroyedEntities() {
+        for (int x = 0; x < 10; x++) {
+            addEntity(TypeRegistry.JAVA, x, 0);
+            addEntity(TypeRegistry.WATER, x, 0);
+            addEntity(TypeRegistry.JAVA, x, 9);
+        }
+        rule(TypeRegistry.TEXT_WATER, TypeRegistry.IS, TypeRegistry.SINK);
+        rule(TypeRegistry.TEXT_JAVA, TypeRegistry.HAS, TypeRegistry.TEXT_FLAG);
+
+        CompositeAction result = executeInteractions();
+        result.execute();
+
+        // Only the sunk JAVA entities on the top row drop a FLAG
+        for (int x = 0; x < 10; x++) {
+            assertEquals(TypeRegistry.FLAG, levelMap.getEntitiesAt(x, 0).getFirst().getType());
+            assertEquals(1, levelMap.getEntitiesAt(x, 0).size());
+            assertEquals(TypeRegistry.JAVA, levelMap.getEntitiesAt(x, 9).getFirst().getType());
+        }
+    }
+
+    @Test
+    void testProcessMoreResumesWhenBlockedNeighbourLeaves() {
+        levelMap = new LevelMap(3, 1);
+        addEntity(TypeRegistry.DOCUMENT, 0, 0);
+        addEntity(TypeRegistry.DOCUMENT, 1, 0);
+        Entity python = addEntity(TypeRegistry.PYTHON, 2, 0);
+        rule(TypeRegistry.TEXT_DOCUMENT, TypeRegistry.IS, TypeRegistry.MORE);
+        rule(TypeRegistry.TEXT_PYTHON, TypeRegistry.IS, TypeRegistry.STOP);
+        Ruleset ruleset = new Ruleset();
+        ruleset.setRules(rules);
+
+        assertEquals(0, interactionHandler.handleInteractions(levelMap, ruleset, ruleEvaluator).size());
+        assertEquals(0, interactionHandler.handleInteractions(levelMap, ruleset, ruleEvaluator).size());
+
+        levelMap.removeEntity(python);
+        CompositeAction result = interactionHandler.handleInteractions(levelMap, ruleset, ruleEvaluator);
+        assertEquals(1, result.size());
+        result.execute();
+        assertEquals(TypeRegistry.DOCUMENT, levelMap.getEntitiesAt(2, 0).getFirst().getType());
+    }
+
+    @Test
+    void testProcessMoreOnlyChecksTheBoundary() {
+        for (int x = 0; x < 10; x++) {
+            for (int y = 0; y < 10; y++) {
+                if (x < 9 || y < 9) {
+                    addEntity(TypeRegistry.DOCUMENT, x, y);
+                }
+            }
+        }
+        rule(TypeRegistry.TEXT_DOCUMENT, TypeRegistry.IS, TypeRegistry.MORE);
+        Ruleset ruleset = new Ruleset();
+        ruleset.setRules(rules);
+
+        assertEquals(1, interactionHandler.handleInteractions(levelMap, ruleset, ruleEvaluator).size());
+        assertEquals(99, interactionHandler.getCheckedMoreCellCount());
+
+        // Only the two cells next to the free corner are left on the boundary
+        CompositeAction result = interactionHandler.handleInteractions(levelMap, ruleset, ruleEvaluator);
+        assertEquals(1, result.size());
+        assertEquals(2, interactionHandler.getCheckedMoreCellCount());
+
+        // Filling the corner only brings back the corner and its neighbours
+        result.execute();
+        assertEquals(0, interactionHandler.handleInteractions(levelMap, ruleset, ruleEvaluator).size());
+        assertEquals(3, interactionHandler.getCheckedMoreCellCount());
+        assertEquals(0, interactionHandler.handleInteractions(levelMap, ruleset, ruleEvaluator).size());
+        assertEquals(0, interactionHandler.getCheckedMoreCellCount());
+    }
 }
@@ -7,10 +7,13 @@ import model.entity.Entity;
 import model.entity.EntityType;
 import model.entity.TypeRegistry;
 import model.map.LevelMap;
+import model.rule.RuleChange;
 import model.rule.Ruleset;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class TurnOrchestratorTest {
@@ -21,8 +24,8 @@ class TurnOrchestratorTest {
 
     @BeforeEach
     void setUp() {
-        turnOrchestrator = new TurnOrchestrator();
         ruleParser = new RuleParser();
+        turnOrchestrator = new TurnOrchestrator(ruleParser);
         levelMap = new LevelMap(10, 10);
         ruleset = new Ruleset();
     }
@@ -46,7 +49,7 @@ class TurnOrchestratorTest {
 
     private CompositeAction runTurn(Direction direction) {
         ruleset.setRules(ruleParser.parseRules(levelMap));
-        return turnOrchestrator.runTurn(direction, levelMap, ruleset, ruleParser);
+        return turnOrchestrator.step(new LevelState(levelMap, ruleset), direction).getActions();
     }
 
     @Test
@@ -57,6 +60,18 @@ class TurnOrchestratorTest {
         assertEquals(0, result.size());
     }
 
+    @Test
+    void testRunTurnWaitKeepsYouInPlace() {
+        Entity javaEntity = setEntityPosition(TypeRegistry.JAVA, 5, 5);
+        addRule(TypeRegistry.TEXT_JAVA, TypeRegistry.IS, TypeRegistry.YOU, 0);
+
+        CompositeAction result = runTurn(null);
+
+        assertEquals(0, result.size());
+        assertEquals(5, levelMap.getX(javaEntity));
+        assertEquals(5, levelMap.getY(javaEntity));
+    }
+
     @Test
     void testRunTurnSimpleYou() {
         Entity javaEntity = setEntityPosition(TypeRegistry.JAVA, 5, 5);
@@ -261,4 +276,106 @@ class TurnOrchestratorTest {
         assertTrue(levelMap.getEntitiesAt(9, 8).contains(pythonEntity1));
         assertTrue(levelMap.getEntitiesAt(9, 8).contains(pythonEntity2));
     }
+
+    @Test
+    void testRunTurnSkipsReparseWithoutTextChange() {
+        setEntityPosition(TypeRegistry.JAVA, 5, 5);
+        addRule(TypeRegistry.TEXT_JAVA, TypeRegistry.IS, TypeRegistry.YOU, 0);
+
+        runTurn(Direction.DOWN);
+        assertEquals(3, turnOrchestrator.getSkippedParseCount());
+        assertEquals(1, ruleset.getRules().size());
+    }
+
+    @Test
+    void testRunTurnReparsesAfterTextPushed() {
+        setEntityPosition(TypeRegistry.JAVA, 5, 1);
+        addRule(TypeRegistry.TEXT_JAVA, TypeRegistry.IS, TypeRegistry.YOU, 0);
+        setEntityPosition(TypeRegistry.TEXT_DOCUMENT, 4, 2);
+        setEntityPosition(TypeRegistry.IS, 5, 2);
+        setEntityPosition(TypeRegistry.PUSH, 6, 2);
+
+        runTurn(Direction.DOWN); // pushes IS out of DOCUMENT IS PUSH
+        assertEquals(2, turnOrchestrator.getSkippedParseCount());
+        assertEquals(1, ruleset.getRules().size());
+    }
+
+    @Test
+    void testStepReportsWin() {
+        setEntityPosition(TypeRegistry.JAVA, 5, 5);
+        setEntityPosition(TypeRegistry.PYTHON, 5, 6);
+        addRule(TypeRegistry.TEXT_JAVA, TypeRegistry.IS, TypeRegistry.YOU, 0);
+        addRule(TypeRegistry.TEXT_PYTHON, TypeRegistry.IS, TypeRegistry.WIN, 1);
+        ruleset.setRules(ruleParser.parseRules(levelMap));
+        LevelState state = new LevelState(levelMap, ruleset);
+
+        TurnOutcome outcome = turnOrchestrator.step(state, Direction.DOWN);
+        assertSame(state, outcome.getState());
+        assertEquals(1, outcome.getActions().size());
+        assertTrue(outcome.isWon());
+        assertFalse(outcome.isLost());
+        assertEquals(RuleChange.UNCHANGED, outcome.getRuleChange());
+    }
+
+    @Test
+    void testStepReportsLossAfterYouRuleBroken() {
+        setEntityPosition(TypeRegistry.JAVA, 1, 2);
+        addRule(TypeRegistry.TEXT_JAVA, TypeRegistry.IS, TypeRegistry.YOU, 1);
+
+        ruleset.setRules(ruleParser.parseRules(levelMap));
+
+        // JAVA pushes IS out of JAVA IS YOU
+        TurnOutcome outcome = turnOrchestrator.step(new LevelState(levelMap, ruleset), Direction.UP);
+        assertTrue(outcome.isLost());
+        assertFalse(outcome.isWon());
+        assertEquals(RuleChange.SHRUNK, outcome.getRuleChange());
+    }
+
+    @Test
+    void testStepOnCopyLeavesOriginalUnchanged() {
+        Entity javaEntity = setEntityPosition(TypeRegistry.JAVA, 5, 5);
+        addRule(TypeRegistry.TEXT_JAVA, TypeRegistry.IS, TypeRegistry.YOU, 0);
+        ruleset.setRules(ruleParser.parseRules(levelMap));
+        LevelState state = new LevelState(levelMap, ruleset);
+
+        TurnOutcome outcome = turnOrchestrator.step(state.copy(), Direction.DOWN);
+        assertEquals(6, outcome.getState().getLevelMap().getY(javaEntity));
+        assertEquals(5, levelMap.getY(javaEntity));
+    }
+
+    @Test
+    void testRunTurnMovesOncePerEntityWithSeveralMoveRules() {
+        Entity pythonEntity = setEntityPosition(TypeRegistry.PYTHON, 5, 5, Direction.RIGHT);
+        addRule(TypeRegistry.TEXT_JAVA, TypeRegistry.IS, TypeRegistry.MOVE, 0);
+        addRule(TypeRegistry.TEXT_PYTHON, TypeRegistry.EXTEND, TypeRegistry.TEXT_JAVA, 1);
+        addRule(TypeRegistry.TEXT_PYTHON, TypeRegistry.IS, TypeRegistry.MOVE, 2);
+
+        CompositeAction result = runTurn(null);
+        assertEquals(1, result.size());
+        assertEquals(6, levelMap.getX(pythonEntity));
+    }
+
+    @Test
+    void testStepAllReportsEveryStep() {
+        Entity javaEntity = setEntityPosition(TypeRegistry.JAVA, 5, 5);
+        setEntityPosition(TypeRegistry.PYTHON, 5, 7);
+        addRule(TypeRegistry.TEXT_JAVA, TypeRegistry.IS, TypeRegistry.YOU, 0);
+        addRule(TypeRegistry.TEXT_PYTHON, TypeRegistry.IS, TypeRegistry.WIN, 1);
+        ruleset.setRules(ruleParser.parseRules(levelMap));
+
+        BatchOutcome outcome = turnOrchestrator.stepAll(new LevelState(levelMap, ruleset),
+                Arrays.asList(Direction.DOWN, null, Direction.DOWN, Direction.RIGHT));
+        assertEquals(4, outcome.getStepCount());
+        assertFalse(outcome.isWonAt(0));
+        assertFalse(outcome.isWonAt(1));
+        assertTrue(outcome.isWonAt(2));
+        assertFalse(outcome.isWonAt(3));
+        assertEquals(2, outcome.getFirstWonStep());
+        assertEquals(3, outcome.getActions().size());
+        assertEquals(6, levelMap.getX(javaEntity));
+
+        outcome.getActions().undo();
+        assertEquals(5, levelMap.getX(javaEntity));
+        assertEquals(5, levelMap.getY(javaEntity));
+    }
 }
@@ -0,0 +1,98 @@
+package logic.level.turn;
+
+import logic.rule.parser.RuleParser;
+import model.entity.Direction;
+import model.entity.Entity;
+import model.entity.EntityType;
+import model.entity.TypeRegistry;
+import model.map.LevelMap;
+import model.rule.Ruleset;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TurnProfilerTest {
+    private TurnProfiler profiler;
+    private TurnOrchestrator turnOrchestrator;
+    private RuleParser ruleParser;
+    private LevelMap levelMap;
+    private Ruleset ruleset;
+
+    @BeforeEach
+    void setUp() {
+        profiler = new TurnProfiler();
+        profiler.setEnabled(false);
+        ruleParser = new RuleParser();
+        turnOrchestrator = new TurnOrchestrator(ruleParser, profiler);
+        levelMap = new LevelMap(10, 10);
+        ruleset = new Ruleset();
+    }
+
+    private void setEntityPosition(EntityType type, int x, int y) {
+        Entity entity = new Entity(type);
+        levelMap.setPosition(entity, x, y);
+    }
+
+    private void step(Direction direction) {
+        ruleset.setRules(ruleParser.parseRules(levelMap));
+        turnOrchestrator.step(new LevelState(levelMap, ruleset), direction);
+    }
+
+    @Test
+    void testDisabledRecordsNothing() {
+        profiler.setEnabled(false);
+        setEntityPosition(TypeRegistry.JAVA, 5, 5);
+
+        step(Direction.DOWN);
+        for (TurnPhase phase : TurnPhase.values()) {
+            assertEquals(0, profiler.getHistogram(phase).getCount());
+        }
+        assertEquals(0L, profiler.start());
+    }
+
+    @Test
+    void testEveryPhaseRecordedOncePerTurn() {
+        profiler.setEnabled(true);
+        setEntityPosition(TypeRegistry.JAVA, 5, 5);
+        setEntityPosition(TypeRegistry.TEXT_JAVA, 0, 0);
+        setEntityPosition(TypeRegistry.IS, 1, 0);
+        setEntityPosition(TypeRegistry.YOU, 2, 0);
+
+        step(Direction.DOWN);
+        step(Direction.DOWN);
+        for (TurnPhase phase : TurnPhase.values()) {
+            assertEquals(2, profiler.getHistogram(phase).getCount());
+        }
+        assertEquals(2, profiler.getHistogram(TurnPhase.YOU_RESOLVE).getTotalIntents());
+        assertEquals(2, profiler.getHistogram(TurnPhase.YOU_RESOLVE).getTotalActions());
+        assertEquals(0, profiler.getHistogram(TurnPhase.MOVE_RESOLVE).getTotalIntents());
+    }
+
+    @Test
+    void testOrchestratorsKeepSeparateHistograms() {
+        profiler.setEnabled(true);
+        TurnProfiler otherProfiler = new TurnProfiler();
+        otherProfiler.setEnabled(true);
+        TurnOrchestrator otherOrchestrator = new TurnOrchestrator(ruleParser, otherProfiler);
+
+        step(null);
+        otherOrchestrator.step(new LevelState(levelMap, ruleset), null);
+        otherOrchestrator.step(new LevelState(levelMap, ruleset), null);
+        assertEquals(1, profiler.getHistogram(TurnPhase.WIN_CHECK).getCount());
+        assertEquals(2, otherProfiler.getHistogram(TurnPhase.WIN_CHECK).getCount());
+    }
+
+    @Test
+    void testDumpListsEveryPhase() {
+        profiler.setEnabled(true);
+        step(null);
+
+        String report = profiler.dump();
+        for (TurnPhase phase : TurnPhase.values()) {
+            assertTrue(report.contains(phase.name()));
+        }
+        TurnProfiler.PhaseHistogram histogram = profiler.getHistogram(TurnPhase.WIN_CHECK);
+        assertTrue(histogram.getPercentileNanos(0.99) <= histogram.getMaxNanos());
+    }
+}
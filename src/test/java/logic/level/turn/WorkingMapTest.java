@@ -0,0 +1,87 @@
+package logic.level.turn;
+
+import model.entity.Direction;
+import model.entity.Entity;
+import model.entity.TypeRegistry;
+import model.map.LevelMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkingMapTest {
+    private LevelMap levelMap;
+    private Entity javaEntity;
+    private Entity flagEntity;
+
+    @BeforeEach
+    void setUp() {
+        levelMap = new LevelMap(5, 5);
+        javaEntity = new Entity(TypeRegistry.JAVA);
+        flagEntity = new Entity(TypeRegistry.FLAG);
+        levelMap.setPosition(javaEntity, 1, 1);
+        levelMap.setPosition(flagEntity, 1, 1);
+    }
+
+    @Test
+    void testMovesStayInOverlay() {
+        WorkingMap workingMap = new WorkingMap(levelMap);
+        workingMap.setPosition(javaEntity, 2, 1);
+
+        assertEquals(2, workingMap.getX(javaEntity));
+        assertEquals(1, workingMap.getEntitiesAt(1, 1).size());
+        assertEquals(1, workingMap.getEntitiesAt(2, 1).size());
+
+        assertEquals(1, levelMap.getX(javaEntity));
+        assertEquals(2, levelMap.getEntitiesAt(1, 1).size());
+        assertTrue(levelMap.getEntitiesAt(2, 1).isEmpty());
+    }
+
+    @Test
+    void testShadowEntityIsUsedConsistently() {
+        WorkingMap workingMap = new WorkingMap(levelMap);
+        Entity workingEntity = workingMap.getEntityById(javaEntity.getEntityId());
+        workingEntity.setDirection(Direction.UP);
+
+        assertNotSame(javaEntity, workingEntity);
+        assertEquals(Direction.DOWN, javaEntity.getDirection());
+        assertSame(workingEntity, workingMap.getEntitiesAt(1, 1).get(0));
+        assertTrue(workingMap.getEntities().stream().anyMatch(e -> e == workingEntity));
+        assertSame(javaEntity, workingMap.getOriginal(workingEntity));
+        assertSame(flagEntity, workingMap.getOriginal(flagEntity));
+    }
+
+    @Test
+    void testRemoveAndReadd() {
+        WorkingMap workingMap = new WorkingMap(levelMap);
+        workingMap.removeEntity(flagEntity);
+
+        assertNull(workingMap.getEntityById(flagEntity.getEntityId()));
+        assertEquals(1, workingMap.getEntities().size());
+        assertThrows(IllegalStateException.class, () -> workingMap.getPosition(flagEntity));
+
+        workingMap.setPosition(flagEntity, 3, 3);
+        assertEquals(3, workingMap.getY(flagEntity));
+        assertTrue(levelMap.getEntitiesAt(1, 1).contains(flagEntity));
+    }
+
+    @Test
+    void testQueriesReflectTheRealMapAndTheOverlay() {
+        WorkingMap workingMap = new WorkingMap(levelMap);
+        workingMap.removeEntity(flagEntity);
+
+        assertEquals(5, workingMap.getWidth());
+        assertTrue(workingMap.isInside(4, 4));
+        assertFalse(workingMap.isInside(5, 0));
+        assertEquals(1, workingMap.getEntityCount());
+        assertTrue(workingMap.getEntitiesOfType(TypeRegistry.FLAG).isEmpty());
+        assertEquals(1, workingMap.getEntitiesOfType(TypeRegistry.JAVA).size());
+        assertEquals(2, levelMap.getEntityCount());
+
+        workingMap.setPosition(flagEntity, 3, 3);
+        assertEquals(2, workingMap.getEntityCount());
+        assertEquals(1, workingMap.getEntitiesAt(new Point(3, 3)).size());
+    }
+}
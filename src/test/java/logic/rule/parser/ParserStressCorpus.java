@@ -0,0 +1,154 @@
+package logic.rule.parser;
+
+import model.entity.Entity;
+import model.entity.EntityType;
+import model.entity.TypeRegistry;
+import model.map.LevelLoader;
+import model.map.LevelMap;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Builds the maps used to stress and benchmark the rule parser:
+ * generated worst cases for each parser stage, plus every level shipped in {@code map/*.csv}.
+ */
+public class ParserStressCorpus {
+
+    private static final List<EntityType> NOUNS = List.of(
+            TypeRegistry.TEXT_JAVA, TypeRegistry.TEXT_FLAG, TypeRegistry.TEXT_WATER, TypeRegistry.TEXT_LAVA,
+            TypeRegistry.TEXT_WIRE, TypeRegistry.TEXT_TILE, TypeRegistry.TEXT_BUG, TypeRegistry.TEXT_CHIP
+    );
+    private static final List<EntityType> PROPERTIES = List.of(
+            TypeRegistry.YOU, TypeRegistry.WIN, TypeRegistry.PUSH, TypeRegistry.STOP,
+            TypeRegistry.SINK, TypeRegistry.HOT, TypeRegistry.MELT, TypeRegistry.MOVE
+    );
+
+    private ParserStressCorpus() {
+    }
+
+    /**
+     * Returns the full corpus in a stable order: generated maps first, then the shipped levels by file name.
+     *
+     * @return map of corpus entry names to level maps
+     */
+    public static Map<String, LevelMap> all() {
+        Map<String, LevelMap> corpus = new LinkedHashMap<>();
+        corpus.put("dense_grid_16", denseTextGrid(16));
+        corpus.put("dense_grid_48", denseTextGrid(48));
+        corpus.put("deep_stack_4x3", deepWordStacks(4, 3));
+        corpus.put("deep_stack_8x3", deepWordStacks(8, 3));
+        corpus.put("and_chain_8", longAndChain(8));
+        corpus.put("and_chain_32", longAndChain(32));
+        corpus.putAll(shippedLevels());
+        return corpus;
+    }
+
+    /**
+     * Fills a square map completely with text, so every row and every column is one long word line.
+     * Rows repeat "NOUN IS PROPERTY AND" so both horizontal and vertical lines contain valid rules.
+     *
+     * @param size the width and height of the map
+     * @return the generated map
+     */
+    public static LevelMap denseTextGrid(int size) {
+        LevelMap levelMap = new LevelMap(size, size);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                EntityType type = switch ((x + y) % 4) {
+                    case 0 -> NOUNS.get((x + y) % NOUNS.size());
+                    case 1 -> TypeRegistry.IS;
+                    case 2 -> PROPERTIES.get((x * 3 + y) % PROPERTIES.size());
+                    default -> TypeRegistry.AND;
+                };
+                levelMap.setPosition(new Entity(type), x, y);
+            }
+        }
+        return levelMap;
+    }
+
+    /**
+     * Places one horizontal "NOUN IS PROPERTY" line where every tile holds a stack of words,
+     * so the permutation generator has to expand {@code depth ^ 3} candidate sentences per repeat.
+     *
+     * @param depth   the number of words stacked on each tile
+     * @param repeats the number of stacked lines, one every other row
+     * @return the generated map
+     */
+    public static LevelMap deepWordStacks(int depth, int repeats) {
+        LevelMap levelMap = new LevelMap(3, repeats * 2);
+        for (int line = 0; line < repeats; line++) {
+            int y = line * 2;
+            for (int i = 0; i < depth; i++) {
+                levelMap.setPosition(new Entity(NOUNS.get(i % NOUNS.size())), 0, y);
+                levelMap.setPosition(new Entity(i % 2 == 0 ? TypeRegistry.IS : TypeRegistry.HAS), 1, y);
+                levelMap.setPosition(new Entity(PROPERTIES.get(i % PROPERTIES.size())), 2, y);
+            }
+        }
+        return levelMap;
+    }
+
+    /**
+     * Places a single sentence "N1 AND N2 AND ... IS P1 AND P2 AND ..." with {@code length} nouns
+     * and {@code length} properties, which makes the syntax validator build {@code length ^ 2} rules.
+     *
+     * @param length the number of subjects and effects in the chain
+     * @return the generated map
+     */
+    public static LevelMap longAndChain(int length) {
+        int width = length * 4;
+        LevelMap levelMap = new LevelMap(width, 1);
+        int x = 0;
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                levelMap.setPosition(new Entity(TypeRegistry.AND), x++, 0);
+            }
+            levelMap.setPosition(new Entity(NOUNS.get(i % NOUNS.size())), x++, 0);
+        }
+        levelMap.setPosition(new Entity(TypeRegistry.IS), x++, 0);
+        for (int i = 0; i < length; i++) {
+            if (i > 0) {
+                levelMap.setPosition(new Entity(TypeRegistry.AND), x++, 0);
+            }
+            levelMap.setPosition(new Entity(PROPERTIES.get(i % PROPERTIES.size())), x++, 0);
+        }
+        return levelMap;
+    }
+
+    /**
+     * Loads every level in the {@code map} resource directory, sorted by file name.
+     *
+     * @return map of file names to loaded level maps
+     */
+    public static Map<String, LevelMap> shippedLevels() {
+        Map<String, LevelMap> levels = new LinkedHashMap<>();
+        URL mapDirectory = ParserStressCorpus.class.getClassLoader().getResource("map");
+        if (mapDirectory == null) {
+            System.err.println("Map directory not found on the classpath");
+            return levels;
+        }
+
+        try (Stream<Path> files = Files.list(Paths.get(mapDirectory.toURI()))) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(fileName -> fileName.endsWith(".csv"))
+                    .sorted()
+                    .forEach(fileName -> {
+                        LevelMap levelMap = LevelLoader.loadLevel("map/" + fileName);
+                        if (levelMap != null) {
+                            levels.put(fileName, levelMap);
+                        }
+                    });
+        } catch (IOException | URISyntaxException e) {
+            System.err.println("Failed to list shipped levels: " + e.getMessage());
+        }
+        return levels;
+    }
+}
@@ -94,4 +94,20 @@ class PermutationGeneratorTest {
         List<List<Entity>> perms = generator.generate(textTiles);
         assertTrue(perms.isEmpty());
     }
+
+    @Test
+    void testStreamingMatchesCollected() {
+        PermutationGenerator generator = new PermutationGenerator();
+
+        List<List<Entity>> line = new ArrayList<>();
+        line.add(List.of(new Entity(TypeRegistry.TEXT_JAVA), new Entity(TypeRegistry.TEXT_PYTHON)));
+        line.add(List.of(new Entity(TypeRegistry.IS), new Entity(TypeRegistry.HAS)));
+        line.add(List.of(new Entity(TypeRegistry.YOU)));
+
+        List<List<Entity>> streamed = new ArrayList<>();
+        generator.generate(line, permutation -> streamed.add(new ArrayList<>(permutation)));
+
+        assertEquals(generator.generate(List.of(line)), streamed);
+        assertEquals(4, streamed.size());
+    }
 }
@@ -0,0 +1,89 @@
+package logic.rule.parser;
+
+import model.map.LevelMap;
+import model.rule.Rule;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures {@link RuleParser#parseRules} over the {@link ParserStressCorpus}, in sequential and parallel mode.
+ * <p>For every map it reports parses per second, bytes allocated per parse and the number of rules found.
+ * Allocation is measured on the calling thread only, so it does not include work done by the
+ * fork-join pool in parallel mode.</p>
+ *
+ * <p>Run with {@code ./gradlew parserBenchmark}. The warmup and measurement time per map can be set
+ * with the {@code bench.warmup.millis} and {@code bench.measure.millis} system properties.</p>
+ */
+public class RuleParserBenchmark {
+
+    private static final long WARMUP_MILLIS = Long.getLong("bench.warmup.millis", 300);
+    private static final long MEASURE_MILLIS = Long.getLong("bench.measure.millis", 1000);
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static volatile int blackhole;
+
+    public static void main(String[] args) {
+        Map<String, LevelMap> corpus = ParserStressCorpus.all();
+
+        System.out.printf("%-32s %-10s %8s %6s %14s %16s%n",
+                "map", "mode", "entities", "rules", "parses/sec", "bytes/parse");
+        for (Map.Entry<String, LevelMap> entry : corpus.entrySet()) {
+            for (boolean isParallel : new boolean[]{false, true}) {
+                RuleParser ruleParser = new RuleParser();
+                ruleParser.setParallel(isParallel);
+                Result result = measure(ruleParser, entry.getValue());
+                System.out.printf("%-32s %-10s %8d %6d %14.1f %16d%n",
+                        entry.getKey(), isParallel ? "parallel" : "sequential",
+                        entry.getValue().getEntities().size(), result.ruleCount,
+                        result.parsesPerSecond, result.bytesPerParse);
+            }
+        }
+    }
+
+    /**
+     * Warms up the parser on the map, then parses it repeatedly for the measurement period.
+     *
+     * @param ruleParser the parser to measure
+     * @param levelMap   the map to parse
+     * @return the measured throughput, allocation and rule count
+     */
+    private static Result measure(RuleParser ruleParser, LevelMap levelMap) {
+        runFor(ruleParser, levelMap, WARMUP_MILLIS);
+
+        long allocatedBefore = THREAD_BEAN.getCurrentThreadAllocatedBytes();
+        long startNanos = System.nanoTime();
+        long parses = runFor(ruleParser, levelMap, MEASURE_MILLIS);
+        long elapsedNanos = System.nanoTime() - startNanos;
+        long allocated = THREAD_BEAN.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+        int ruleCount = ruleParser.parseRules(levelMap).size();
+        return new Result(parses * 1e9 / elapsedNanos, allocated / parses, ruleCount);
+    }
+
+    private static long runFor(RuleParser ruleParser, LevelMap levelMap, long millis) {
+        long deadline = System.nanoTime() + millis * 1_000_000L;
+        long parses = 0;
+        do {
+            List<Rule> rules = ruleParser.parseRules(levelMap);
+            blackhole += rules.size();
+            parses++;
+        } while (System.nanoTime() < deadline);
+        return parses;
+    }
+
+    private static class Result {
+        private final double parsesPerSecond;
+        private final long bytesPerParse;
+        private final int ruleCount;
+
+        Result(double parsesPerSecond, long bytesPerParse, int ruleCount) {
+            this.parsesPerSecond = parsesPerSecond;
+            this.bytesPerParse = bytesPerParse;
+            this.ruleCount = ruleCount;
+        }
+    }
+}
@@ -9,6 +9,7 @@ import org.junit.jupiter.api.Test;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class RuleParserTest {
 
@@ -59,4 +60,55 @@ public class RuleParserTest {
 
         assertEquals(8, results.size());
     }
+
+    @Test
+    void testParallelMatchesSequential() {
+        LevelMap levelMap = new LevelMap(20, 20);
+        for (int row = 0; row < 20; row += 2) {
+            levelMap.setPosition(new Entity(TypeRegistry.TEXT_JAVA), 0, row);
+            levelMap.setPosition(new Entity(TypeRegistry.AND), 1, row);
+            levelMap.setPosition(new Entity(TypeRegistry.TEXT_FLAG), 2, row);
+            levelMap.setPosition(new Entity(TypeRegistry.IS), 3, row);
+            levelMap.setPosition(new Entity(TypeRegistry.PUSH), 4, row);
+            levelMap.setPosition(new Entity(TypeRegistry.AND), 5, row);
+            levelMap.setPosition(new Entity(TypeRegistry.WIN), 6, row);
+            levelMap.setPosition(new Entity(TypeRegistry.TEXT_LAVA), 10, row);
+        }
+        for (int row = 0; row < 20; row++) {
+            levelMap.setPosition(new Entity(row % 3 == 0 ? TypeRegistry.IS : TypeRegistry.TEXT_WATER), 12, row);
+            levelMap.setPosition(new Entity(TypeRegistry.YOU), 13, row);
+        }
+
+        RuleParser sequentialParser = new RuleParser();
+        RuleParser parallelParser = new RuleParser();
+        parallelParser.setParallel(true);
+
+        List<Rule> expected = sequentialParser.parseRules(levelMap);
+        List<Rule> actual = parallelParser.parseRules(levelMap);
+
+        assertTrue(expected.size() > 10);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getEntitySignature(), actual.get(i).getEntitySignature());
+        }
+    }
+
+    @Test
+    void testDuplicateRulesRemovedInline() {
+        LevelMap levelMap = new LevelMap(6, 1);
+        RuleParser ruleParser = new RuleParser();
+
+        levelMap.setPosition(new Entity(TypeRegistry.AND), 0, 0);
+        levelMap.setPosition(new Entity(TypeRegistry.AND), 0, 0);
+        levelMap.setPosition(new Entity(TypeRegistry.TEXT_JAVA), 1, 0);
+        levelMap.setPosition(new Entity(TypeRegistry.IS), 2, 0);
+        levelMap.setPosition(new Entity(TypeRegistry.YOU), 3, 0);
+        levelMap.setPosition(new Entity(TypeRegistry.HAS), 4, 0);
+        levelMap.setPosition(new Entity(TypeRegistry.WIN), 5, 0);
+
+        List<Rule> results = ruleParser.parseRules(levelMap);
+
+        assertEquals(1, results.size());
+        assertEquals("java is you", results.getFirst().toString());
+    }
 }
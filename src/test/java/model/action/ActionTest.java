@@ -2,8 +2,17 @@ package model.action;
 
 import model.entity.*;
 import model.map.LevelMap;
+import model.rule.Rule;
+import model.rule.Ruleset;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.Point;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -120,4 +129,442 @@ class ActionTest {
         assertEquals(Direction.DOWN, levelMap.getEntitiesAt(0, 1).get(0).getDirection());
         assertEquals(2, levelMap.getEntities().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testActionStackUndoRedoTransformAndDestroy() {
+        Entity text = new Entity(TypeRegistry.TEXT_JAVA);
+        levelMap.setPosition(text, 3, 3);
+
+        CompositeAction first = new CompositeAction();
+        first.add(new MoveAction(levelMap, entity, Direction.DOWN));
+        first.add(new DestroyAction(levelMap, text));
+        first.execute();
+        actionStack.newAction(first);
+
+        CompositeAction second = new CompositeAction();
+        second.add(new TransformAction(levelMap, entity, TypeRegistry.PYTHON));
+        second.execute();
+        actionStack.newAction(second);
+
+        assertFalse(actionStack.undo());
+        assertEquals(entity, levelMap.getEntitiesAt(0, 1).get(0));
+        assertTrue(actionStack.undo());
+        assertEquals(entity, levelMap.getEntitiesAt(0, 0).get(0));
+        assertEquals(text, levelMap.getEntitiesAt(3, 3).get(0));
+        assertFalse(actionStack.canUndo());
+        assertFalse(actionStack.undo());
+
+        assertTrue(actionStack.redo());
+        assertFalse(actionStack.redo());
+        assertEquals(TypeRegistry.PYTHON, levelMap.getEntitiesAt(0, 1).get(0).getType());
+        assertEquals(Direction.DOWN, levelMap.getEntitiesAt(0, 1).get(0).getDirection());
+        assertTrue(levelMap.getEntitiesAt(3, 3).isEmpty());
+        assertFalse(actionStack.canRedo());
+    }
+
+    @Test
+    void testActionStackMemoryCapDropsOldestTurns() {
+        for (int i = 0; i < 100; i++) {
+            CompositeAction turn = new CompositeAction();
+            turn.add(new MoveAction(levelMap, entity, i % 2 == 0 ? Direction.DOWN : Direction.UP));
+            turn.execute();
+            actionStack.newAction(turn);
+        }
+        assertEquals(100, actionStack.size());
+        long fullUsage = actionStack.getMemoryUsage();
+
+        actionStack.setMemoryCap(fullUsage / 4);
+        assertTrue(actionStack.getMemoryUsage() <= fullUsage / 4);
+        assertTrue(actionStack.size() < 100);
+        assertTrue(actionStack.size() > 0);
+
+        int undoCount = 0;
+        while (actionStack.canUndo()) {
+            actionStack.undo();
+            undoCount++;
+        }
+        assertEquals(actionStack.size(), undoCount);
+        assertEquals(0, levelMap.getX(entity));
+        assertEquals((100 - undoCount) % 2, levelMap.getY(entity));
+    }
+
+    @Test
+    void testActionStackMemoryCapDropsOldestTurnsWhilePlaying() {
+        actionStack.setCheckpointInterval(8, 1000);
+        List<String> snapshots = new ArrayList<>();
+        snapshots.add(describe(levelMap));
+        long memoryCap = 0;
+        for (int i = 0; i < 400; i++) {
+            CompositeAction turn = new CompositeAction();
+            turn.add(new MoveAction(levelMap, entity, i % 16 < 8 ? Direction.RIGHT : Direction.LEFT));
+            if (i % 5 == 0) {
+                turn.add(new CreateAction(levelMap, TypeRegistry.PYTHON, Direction.UP, i / 5 % 10, 2 + i / 50));
+            }
+            turn.execute();
+            actionStack.newAction(turn);
+            snapshots.add(describe(levelMap));
+            if (i == 99) {
+                memoryCap = actionStack.getMemoryUsage();
+                actionStack.setMemoryCap(memoryCap);
+            }
+            assertTrue(i < 99 || actionStack.getMemoryUsage() <= memoryCap);
+        }
+
+        int droppedCount = 400 - actionStack.size();
+        assertTrue(droppedCount > 300);
+        for (int target : new int[]{0, actionStack.size(), 1, 9, actionStack.size() / 2, 0}) {
+            actionStack.seek(target);
+            assertEquals(snapshots.get(droppedCount + target), describe(levelMap));
+        }
+        actionStack.seek(actionStack.size());
+        while (actionStack.canUndo()) {
+            actionStack.undo();
+        }
+        assertEquals(snapshots.get(droppedCount), describe(levelMap));
+    }
+
+    @Test
+    void testActionStackSeekThroughCheckpoints() {
+        actionStack.setCheckpointInterval(4, 1000);
+        List<String> snapshots = new ArrayList<>();
+        snapshots.add(describe(levelMap));
+        for (int i = 0; i < 30; i++) {
+            CompositeAction turn = new CompositeAction();
+            turn.add(new MoveAction(levelMap, entity, i % 4 < 2 ? Direction.RIGHT : Direction.LEFT));
+            if (i % 3 == 0) {
+                turn.add(new CreateAction(levelMap, TypeRegistry.PYTHON, Direction.UP, i % 10, 5));
+            }
+            if (i % 6 == 3) {
+                turn.add(new DestroyAction(levelMap, levelMap.getEntitiesAt((i - 3) % 10, 5).get(0)));
+            }
+            turn.execute();
+            actionStack.newAction(turn);
+            snapshots.add(describe(levelMap));
+        }
+
+        for (int target : new int[]{0, 29, 3, 17, 30, 1, 22, 22, 8}) {
+            actionStack.seek(target);
+            assertEquals(target, actionStack.getCursor());
+            assertEquals(snapshots.get(target), describe(levelMap));
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> actionStack.seek(31));
+
+        actionStack.undo();
+        assertEquals(snapshots.get(7), describe(levelMap));
+        actionStack.redo();
+        actionStack.redo();
+        assertEquals(snapshots.get(9), describe(levelMap));
+    }
+
+    @Test
+    void testTimelineSeekerPrefetchesAheadOfTheShownTurn() {
+        List<String> snapshots = new ArrayList<>();
+        snapshots.add(describe(levelMap));
+        for (int i = 0; i < 200; i++) {
+            CompositeAction turn = new CompositeAction();
+            turn.add(new MoveAction(levelMap, entity, i % 16 < 8 ? Direction.RIGHT : Direction.LEFT));
+            if (i % 7 == 0) {
+                turn.add(new CreateAction(levelMap, TypeRegistry.PYTHON, i / 7 % 10, 2 + i / 70));
+            }
+            turn.execute();
+            actionStack.newAction(turn);
+            snapshots.add(describe(levelMap));
+        }
+
+        TimelineSeeker seeker = new TimelineSeeker(actionStack);
+        seeker.seek(100);
+        seeker.seek(101);
+        assertEquals(snapshots.get(101), describe(levelMap));
+        assertTrue(seeker.prefetch(Long.MAX_VALUE) > 0);
+        assertEquals(0, seeker.prefetch(Long.MAX_VALUE));
+        assertEquals(101, actionStack.getCursor());
+        assertEquals(snapshots.get(101), describe(levelMap));
+
+        for (int target = 101; target <= 101 + TimelineSeeker.DEFAULT_PREFETCH_RADIUS; target++) {
+            actionStack.seek(0);
+            seeker.seek(target);
+            assertEquals(snapshots.get(target), describe(levelMap));
+            assertTrue(actionStack.getLastReplayCount() <= TimelineSeeker.DEFAULT_PREFETCH_SPACING);
+        }
+    }
+
+    @Test
+    void testTimelineSeekerKeepsEveryTurnUnderATightCap() {
+        List<String> snapshots = new ArrayList<>();
+        snapshots.add(describe(levelMap));
+        for (int i = 0; i < 200; i++) {
+            CompositeAction turn = new CompositeAction();
+            turn.add(new MoveAction(levelMap, entity, i % 16 < 8 ? Direction.RIGHT : Direction.LEFT));
+            if (i % 7 == 0) {
+                turn.add(new CreateAction(levelMap, TypeRegistry.PYTHON, i / 7 % 10, 2 + i / 70));
+            }
+            turn.execute();
+            actionStack.newAction(turn);
+            snapshots.add(describe(levelMap));
+        }
+        int startTurn = 120;
+        actionStack.seek(startTurn);
+        // Leave room for a few pinned checkpoints only
+        long memoryCap = actionStack.getMemoryUsage() + 1000;
+        actionStack.setMemoryCap(memoryCap);
+        int stateCount = actionStack.getStateCount();
+
+        TimelineSeeker seeker = new TimelineSeeker(actionStack);
+        for (int shownTurn : new int[]{100, 101, 60, 59, 180}) {
+            seeker.seek(shownTurn);
+            seeker.prefetch(Long.MAX_VALUE);
+            assertEquals(shownTurn, actionStack.getCursor());
+            assertEquals(snapshots.get(shownTurn), describe(levelMap));
+            assertTrue(actionStack.getMemoryUsage() <= memoryCap);
+        }
+        assertTrue(actionStack.getPinnedCheckpointCount() > 0);
+        assertEquals(200, actionStack.size());
+        assertEquals(stateCount, actionStack.getStateCount());
+
+        seeker.seek(startTurn);
+        assertEquals(snapshots.get(startTurn), describe(levelMap));
+        seeker.seek(200);
+        assertEquals(snapshots.get(200), describe(levelMap));
+        seeker.seek(0);
+        assertEquals(snapshots.get(0), describe(levelMap));
+    }
+
+    @Test
+    void testActionStackSpillKeepsEveryTurn(@TempDir Path scratchDirectory) throws IOException {
+        // The undo tree stays on the heap, so only the turns are held to a small budget
+        long memoryCap = 6000 + 501L * UndoTree.NODE_BYTES;
+        actionStack.enableSpill(scratchDirectory);
+        actionStack.setMemoryCap(memoryCap);
+        actionStack.setCheckpointInterval(16, 1000);
+        List<String> snapshots = new ArrayList<>();
+        snapshots.add(describe(levelMap));
+        for (int i = 0; i < 500; i++) {
+            CompositeAction turn = new CompositeAction();
+            turn.add(new MoveAction(levelMap, entity, i % 10 < 5 ? Direction.RIGHT : Direction.LEFT));
+            if (i % 50 == 0) {
+                turn.add(new CreateAction(levelMap, TypeRegistry.PYTHON, i / 50, 9));
+            }
+            turn.execute();
+            actionStack.newAction(turn);
+            snapshots.add(describe(levelMap));
+        }
+
+        assertEquals(500, actionStack.size());
+        assertTrue(actionStack.getMemoryUsage() <= memoryCap);
+        for (int target : new int[]{0, 499, 3, 250, 500, 1, 17}) {
+            actionStack.seek(target);
+            assertEquals(snapshots.get(target), describe(levelMap));
+        }
+        while (actionStack.canUndo()) {
+            actionStack.undo();
+        }
+        assertEquals(snapshots.get(0), describe(levelMap));
+
+        actionStack.disableSpill();
+        actionStack.seek(500);
+        assertEquals(snapshots.get(500), describe(levelMap));
+    }
+
+    @Test
+    void testActionStackSpillCompactsHandlesAcrossTheSpillBoundary(@TempDir Path scratchDirectory) throws IOException {
+        actionStack.enableSpill(scratchDirectory);
+        actionStack.setMemoryCap(2000 + 201L * UndoTree.NODE_BYTES);
+        actionStack.setCheckpointInterval(16, 1000);
+        List<String> snapshots = new ArrayList<>();
+        snapshots.add(describe(levelMap));
+        for (int i = 0; i < 200; i++) {
+            CompositeAction turn = new CompositeAction();
+            turn.add(new MoveAction(levelMap, entity, i % 10 < 5 ? Direction.RIGHT : Direction.LEFT));
+            if (i % 2 == 0) {
+                turn.add(new CreateAction(levelMap, TypeRegistry.PYTHON, i / 2 % 10, 2 + i / 20 % 8));
+            }
+            turn.execute();
+            actionStack.newAction(turn);
+            snapshots.add(describe(levelMap));
+        }
+
+        // Playing the last turn again reaches a known state, so the new turn is dropped and the handles compacted
+        actionStack.undo();
+        CompositeAction again = new CompositeAction();
+        again.add(new MoveAction(levelMap, entity, Direction.LEFT));
+        again.execute();
+        actionStack.newAction(again);
+        assertEquals(200, actionStack.size());
+        assertEquals(snapshots.get(200), describe(levelMap));
+
+        while (actionStack.canUndo()) {
+            actionStack.undo();
+        }
+        assertEquals(snapshots.get(0), describe(levelMap));
+        for (int target : new int[]{200, 3, 150, 199, 0}) {
+            actionStack.seek(target);
+            assertEquals(snapshots.get(target), describe(levelMap));
+        }
+    }
+
+    @Test
+    void testActionStackKeepsUndoneBranches() {
+        CompositeAction down = new CompositeAction();
+        down.add(new MoveAction(levelMap, entity, Direction.DOWN));
+        down.execute();
+        actionStack.newAction(down);
+        long downState = actionStack.getStateHash();
+        String downSnapshot = describe(levelMap);
+
+        actionStack.undo();
+        CompositeAction right = new CompositeAction();
+        right.add(new MoveAction(levelMap, entity, Direction.RIGHT));
+        right.execute();
+        actionStack.newAction(right);
+        long rightState = actionStack.getStateHash();
+        String rightSnapshot = describe(levelMap);
+
+        assertNotEquals(downState, rightState);
+        assertEquals(1, actionStack.size());
+        assertEquals(3, actionStack.getStateCount());
+        assertFalse(actionStack.canRedo());
+
+        actionStack.seekState(downState);
+        assertEquals(downSnapshot, describe(levelMap));
+        assertEquals(1, actionStack.getCursor());
+        actionStack.undo();
+        actionStack.redo();
+        assertEquals(downSnapshot, describe(levelMap));
+
+        actionStack.seekState(rightState);
+        assertEquals(rightSnapshot, describe(levelMap));
+        assertThrows(IllegalArgumentException.class, () -> actionStack.seekState(downState ^ rightState));
+
+        actionStack.setMemoryCap(actionStack.getMemoryUsage() - 1);
+        assertEquals(2, actionStack.getStateCount());
+        assertFalse(actionStack.hasState(downState));
+        assertTrue(actionStack.hasState(rightState));
+        actionStack.undo();
+        assertEquals(0, levelMap.getX(entity));
+    }
+
+    @Test
+    void testActionStackMergesIdenticalStates() {
+        CompositeAction down = new CompositeAction();
+        down.add(new MoveAction(levelMap, entity, Direction.DOWN));
+        down.execute();
+        actionStack.newAction(down);
+        actionStack.undo();
+        long initialState = actionStack.getStateHash();
+
+        CompositeAction sameDown = new CompositeAction();
+        sameDown.add(new MoveAction(levelMap, entity, Direction.DOWN));
+        sameDown.execute();
+        actionStack.newAction(sameDown);
+        assertEquals(2, actionStack.getStateCount());
+        assertEquals(1, actionStack.size());
+
+        CompositeAction rotate = new CompositeAction();
+        rotate.add(new RotateAction(entity, Direction.UP));
+        rotate.execute();
+        actionStack.newAction(rotate);
+        CompositeAction up = new CompositeAction();
+        up.add(new MoveAction(levelMap, entity, Direction.UP));
+        up.add(new RotateAction(entity, Direction.RIGHT));
+        up.execute();
+        actionStack.newAction(up);
+        assertEquals(initialState, actionStack.getStateHash());
+
+        actionStack.undo();
+        actionStack.undo();
+        actionStack.undo();
+        assertEquals(initialState, actionStack.getStateHash());
+        assertEquals(0, levelMap.getY(entity));
+        assertEquals(Direction.RIGHT, entity.getDirection());
+    }
+
+    @Test
+    void testActionStackCoalescesActionsOfAnEntity() {
+        ActionStack singleMoveStack = new ActionStack();
+        CompositeAction singleMove = new CompositeAction();
+        singleMove.add(new MoveAction(levelMap, entity, Direction.RIGHT));
+        singleMove.execute();
+        singleMoveStack.newAction(singleMove);
+        singleMoveStack.undo();
+
+        CompositeAction bounce = new CompositeAction();
+        bounce.add(new RotateAction(entity, Direction.LEFT));
+        bounce.add(new MoveAction(levelMap, entity, new Point(0, 0), Direction.RIGHT));
+        bounce.add(new MoveAction(levelMap, entity, new Point(1, 0), Direction.DOWN));
+        bounce.add(new MoveAction(levelMap, entity, new Point(1, 1), Direction.UP));
+        bounce.execute();
+        actionStack.newAction(bounce);
+        assertEquals(singleMoveStack.getMemoryUsage(), actionStack.getMemoryUsage());
+
+        actionStack.undo();
+        assertEquals(0, levelMap.getX(entity));
+        assertEquals(Direction.RIGHT, entity.getDirection());
+        actionStack.redo();
+        assertEquals(List.of(entity), levelMap.getEntitiesAt(1, 0));
+        assertEquals(Direction.UP, entity.getDirection());
+
+        CompositeAction spin = new CompositeAction();
+        spin.add(new RotateAction(entity, Direction.LEFT));
+        spin.add(new RotateAction(entity, Direction.UP));
+        spin.execute();
+        long usageBeforeSpin = actionStack.getMemoryUsage();
+        actionStack.newAction(spin);
+        long usageBeforeEmptyTurn = singleMoveStack.getMemoryUsage();
+        singleMoveStack.newAction(new CompositeAction());
+        assertEquals(singleMoveStack.getMemoryUsage() - usageBeforeEmptyTurn, actionStack.getMemoryUsage() - usageBeforeSpin);
+    }
+
+    @Test
+    void testActionStackRestoresRecordedRules() {
+        Ruleset ruleset = new Ruleset();
+        Rule rule = new Rule(new Entity(TypeRegistry.TEXT_JAVA), new Entity(TypeRegistry.IS), new Entity(TypeRegistry.YOU), List.of());
+        actionStack.setCurrentRules(ruleset);
+
+        CompositeAction first = new CompositeAction();
+        first.add(new MoveAction(levelMap, entity, Direction.DOWN));
+        first.execute();
+        ruleset.setRules(List.of(rule));
+        actionStack.newAction(first, ruleset);
+
+        CompositeAction second = new CompositeAction();
+        second.add(new MoveAction(levelMap, entity, Direction.DOWN));
+        second.execute();
+        actionStack.newAction(second);
+
+        assertNull(actionStack.getCurrentRules());
+        actionStack.undo();
+        assertEquals(List.of(rule), actionStack.getCurrentRules());
+        actionStack.undo();
+        assertEquals(List.of(), actionStack.getCurrentRules());
+        actionStack.seek(1);
+        assertSame(actionStack.getCurrentRules(), actionStack.getCurrentRules());
+        assertEquals(List.of(rule), actionStack.getCurrentRules());
+    }
+
+    private static String describe(LevelMap levelMap) {
+        return levelMap.getEntities().stream()
+                .map(e -> e.getEntityId() + ":" + levelMap.getX(e) + "," + levelMap.getY(e) + "," + e.getDirection())
+                .sorted()
+                .toList()
+                .toString();
+    }
+
+    @Test
+    void testAffectsText() {
+        Entity text = new Entity(TypeRegistry.TEXT_JAVA);
+        levelMap.setPosition(text, 5, 5);
+
+        assertFalse(new MoveAction(levelMap, entity, Direction.DOWN).affectsText());
+        assertFalse(new RotateAction(text, Direction.UP).affectsText());
+        assertTrue(new MoveAction(levelMap, text, Direction.DOWN).affectsText());
+        assertTrue(new DestroyAction(levelMap, text).affectsText());
+        assertTrue(new CreateAction(levelMap, TypeRegistry.IS, 1, 1).affectsText());
+        assertTrue(new TransformAction(levelMap, entity, TypeRegistry.TEXT_JAVA).affectsText());
+
+        CompositeAction composite = new CompositeAction();
+        composite.add(new MoveAction(levelMap, entity, Direction.DOWN));
+        assertFalse(composite.affectsText());
+        composite.add(new DestroyAction(levelMap, text));
+        assertTrue(composite.affectsText());
+    }
+}
@@ -1,12 +1,16 @@
 package model.map;
 
+import model.entity.Direction;
 import model.entity.Entity;
 import model.entity.EntityType;
 import model.entity.AnimationStyle;
+import model.entity.TypeRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -43,6 +47,23 @@ class LevelMapTest {
         assertTrue(levelMap.getEntitiesAt(2, 2).contains(player));
     }
 
+    @Test
+    void testMemoryUsageFollowsEntities() {
+        long emptyUsage = levelMap.getMemoryUsage();
+        Entity player = new Entity(javaType);
+        levelMap.setPosition(player, 1, 1);
+        long oneEntityUsage = levelMap.getMemoryUsage();
+        assertTrue(oneEntityUsage > emptyUsage);
+
+        levelMap.setPosition(new Entity(javaType), 1, 1);
+        assertTrue(levelMap.getMemoryUsage() > oneEntityUsage);
+
+        levelMap.snapshot();
+        long trackedUsage = levelMap.getMemoryUsage();
+        levelMap.removeEntity(player);
+        assertTrue(levelMap.getMemoryUsage() < trackedUsage);
+    }
+
     @Test
     void testIsInside() {
         assertTrue(levelMap.isInside(0, 0));
@@ -60,4 +81,135 @@ class LevelMapTest {
         assertTrue(levelMap.getEntitiesAt(0, 0).isEmpty());
         assertEquals(0, levelMap.getEntities().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testTextEntitiesTracked() {
+        Entity player = new Entity(javaType);
+        Entity text = new Entity(TypeRegistry.TEXT_JAVA);
+        levelMap.setPosition(player, 1, 1);
+        levelMap.setPosition(text, 2, 2);
+        levelMap.setPosition(text, 3, 3);
+
+        assertEquals(Set.of(text), levelMap.getTextEntities());
+        assertEquals(Set.of(text), new LevelMap(levelMap).getTextEntities());
+
+        levelMap.removeEntity(text);
+        assertTrue(levelMap.getTextEntities().isEmpty());
+    }
+
+    @Test
+    void testEntitiesOfTypeTracked() {
+        Entity player = new Entity(javaType);
+        Entity text = new Entity(TypeRegistry.TEXT_JAVA);
+        levelMap.setPosition(player, 1, 1);
+        levelMap.setPosition(text, 2, 2);
+        levelMap.setPosition(player, 4, 4);
+
+        assertEquals(Set.of(player), levelMap.getEntitiesOfType(javaType));
+        assertEquals(Set.of(text), levelMap.getEntitiesOfType(TypeRegistry.TEXT_JAVA));
+
+        levelMap.removeEntity(player);
+        assertTrue(levelMap.getEntitiesOfType(javaType).isEmpty());
+    }
+
+    @Test
+    void testCellVersionChangesOnEnterAndLeave() {
+        Entity player = new Entity(javaType);
+        assertEquals(0L, levelMap.getCellVersion(1, 1));
+
+        levelMap.setPosition(player, 1, 1);
+        long enteredVersion = levelMap.getCellVersion(1, 1);
+        assertTrue(enteredVersion > 0);
+
+        levelMap.setPosition(player, 2, 1);
+        assertTrue(levelMap.getCellVersion(1, 1) > enteredVersion);
+        assertTrue(levelMap.getCellVersion(2, 1) > enteredVersion);
+        assertEquals(0L, levelMap.getCellVersion(3, 3));
+    }
+
+    @Test
+    void testChangeJournalVisitsCellsChangedSince() {
+        Entity player = new Entity(javaType);
+        levelMap.setPosition(player, 1, 1);
+        long since = levelMap.getChangeCount();
+
+        levelMap.setPosition(player, 2, 1);
+        List<Integer> changedCells = new ArrayList<>();
+        assertTrue(levelMap.forEachCellChangedSince(since, changedCells::add));
+        assertEquals(List.of(11, 12), changedCells);
+        assertTrue(levelMap.forEachCellChangedSince(levelMap.getChangeCount(), cell -> fail()));
+
+        for (int i = 0; i < 100; i++) {
+            levelMap.setPosition(player, i % 2 == 0 ? 3 : 2, 1);
+        }
+        assertFalse(levelMap.forEachCellChangedSince(since, cell -> fail()));
+    }
+
+    @Test
+    void testRestoreSnapshotRebuildsChangedCells() {
+        Entity player = new Entity(javaType);
+        Entity rock = new Entity(TypeRegistry.PYTHON);
+        Entity wall = new Entity(javaType);
+        Entity far = new Entity(javaType);
+        levelMap.setPosition(player, 1, 1);
+        levelMap.setPosition(rock, 1, 1);
+        levelMap.setPosition(wall, 2, 2);
+        levelMap.setPosition(far, 8, 8);
+        LevelSnapshot snapshot = levelMap.snapshot();
+        long farVersion = levelMap.getCellVersion(8, 8);
+
+        levelMap.setPosition(player, 3, 1);
+        levelMap.removeEntity(wall);
+        levelMap.setPosition(new Entity(javaType), 2, 2);
+        far.setDirection(Direction.LEFT);
+
+        levelMap.restore(snapshot);
+        assertEquals(List.of(player, rock), levelMap.getEntitiesAt(1, 1));
+        assertEquals(List.of(wall), levelMap.getEntitiesAt(2, 2));
+        assertTrue(levelMap.getEntitiesAt(3, 1).isEmpty());
+        assertEquals(4, levelMap.getEntityCount());
+        assertEquals(Direction.DOWN, far.getDirection());
+        assertEquals(farVersion, levelMap.getCellVersion(8, 8));
+        assertEquals(1, levelMap.getEpoch());
+
+        levelMap.setPosition(rock, 0, 0);
+        levelMap.restore(snapshot);
+        assertEquals(List.of(player, rock), levelMap.getEntitiesAt(1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new LevelMap(levelMap).restore(snapshot));
+    }
+
+    @Test
+    void testApplyBatchMatchesSequentialChanges() {
+        Entity player = new Entity(javaType);
+        Entity rock = new Entity(TypeRegistry.PYTHON);
+        Entity text = new Entity(TypeRegistry.TEXT_JAVA);
+        Entity created = new Entity(TypeRegistry.PYTHON);
+        levelMap.setPosition(player, 1, 1);
+        levelMap.setPosition(rock, 1, 1);
+        levelMap.setPosition(text, 4, 4);
+        long untouchedVersion = levelMap.getCellVersion(6, 6);
+
+        MapBatch batch = new MapBatch(levelMap);
+        batch.setPosition(player, 6, 6);
+        batch.setPosition(player, 2, 1);
+        batch.setPosition(created, 2, 1);
+        batch.removeEntity(text);
+        batch.setPosition(rock, 2, 1);
+        assertEquals(2, batch.getX(player));
+        assertThrows(IllegalStateException.class, () -> batch.getX(text));
+        assertEquals(List.of(player, rock), levelMap.getEntitiesAt(1, 1));
+
+        batch.apply();
+        assertTrue(batch.isEmpty());
+        assertEquals(List.of(player, created, rock), levelMap.getEntitiesAt(2, 1));
+        assertTrue(levelMap.getEntitiesAt(1, 1).isEmpty());
+        assertTrue(levelMap.getEntitiesAt(4, 4).isEmpty());
+        assertEquals(Set.of(), levelMap.getTextEntities());
+        assertNull(levelMap.getEntityById(text.getEntityId()));
+        assertSame(created, levelMap.getEntityById(created.getEntityId()));
+        assertEquals(Set.of(rock, created), levelMap.getEntitiesOfType(TypeRegistry.PYTHON));
+        assertEquals(3, levelMap.getEntityCount());
+        assertEquals(levelMap.getCellVersion(1, 1), levelMap.getCellVersion(2, 1));
+        assertEquals(untouchedVersion, levelMap.getCellVersion(6, 6));
+    }
+}
@@ -27,6 +27,15 @@ class RulesetTest {
         assertTrue(ruleset.getRules().isEmpty());
     }
 
+    @Test
+    void testMemoryUsageGrowsWithRules() {
+        long emptyUsage = ruleset.getMemoryUsage();
+        ruleset.setRules(List.of(rule));
+        assertTrue(ruleset.getMemoryUsage() > emptyUsage);
+        ruleset.setRules(List.of());
+        assertEquals(emptyUsage, ruleset.getMemoryUsage());
+    }
+
     @Test
     void testSetRules() {
         ruleset.setRules(List.of(rule));
@@ -34,6 +43,40 @@ class RulesetTest {
         assertTrue(ruleset.getRules().contains(rule));
     }
 
+    @Test
+    void testSetRulesReportsChange() {
+        assertEquals(RuleChange.GROWN, ruleset.setRules(List.of(rule)));
+        assertEquals(RuleChange.UNCHANGED, ruleset.setRules(List.of(rule)));
+        assertEquals(RuleChange.SHRUNK, ruleset.setRules(List.of()));
+    }
+
+    @Test
+    void testFingerprintFollowsRules() {
+        long emptyFingerprint = ruleset.getFingerprint();
+        ruleset.setRules(List.of(rule));
+        long ruleFingerprint = ruleset.getFingerprint();
+        assertNotEquals(emptyFingerprint, ruleFingerprint);
+
+        Rule sameWords = new Rule(subjectText, verbText, effectText, List.of());
+        Ruleset otherRuleset = new Ruleset();
+        otherRuleset.setRules(List.of(sameWords));
+        assertEquals(ruleFingerprint, otherRuleset.getFingerprint());
+
+        ruleset.setRules(List.of());
+        assertEquals(emptyFingerprint, ruleset.getFingerprint());
+    }
+
+    @Test
+    void testGetRulesWithEffect() {
+        Rule otherRule = new Rule(subjectText, verbText, new Entity(TypeRegistry.WIN), List.of());
+        ruleset.setRules(List.of(rule, otherRule));
+        assertEquals(List.of(rule), ruleset.getRulesWithEffect(TypeRegistry.YOU));
+        assertEquals(List.of(otherRule), ruleset.getRulesWithEffect(TypeRegistry.WIN));
+
+        ruleset.setRules(List.of(otherRule));
+        assertTrue(ruleset.getRulesWithEffect(TypeRegistry.YOU).isEmpty());
+    }
+
     @Test
     void testGetActiveTexts() {
         Entity condText = new Entity(TypeRegistry.ON);
@@ -50,4 +93,26 @@ class RulesetTest {
         assertTrue(texts.contains(condText));
         assertTrue(texts.contains(condParam));
     }
+
+    @Test
+    void testInactiveTextsFollowRuleChanges() {
+        Entity strayText = new Entity(TypeRegistry.TEXT_FLAG);
+        ruleset.setTextEntities(List.of(subjectText, verbText, effectText, strayText));
+        assertEquals(Set.of(subjectText, verbText, effectText, strayText), ruleset.getInactiveTexts());
+
+        ruleset.setRules(List.of(rule));
+        assertEquals(Set.of(strayText), ruleset.getInactiveTexts());
+        assertEquals(Set.of(subjectText, verbText, effectText), ruleset.getActiveTexts());
+
+        Entity otherEffect = new Entity(TypeRegistry.WIN);
+        Rule otherRule = new Rule(subjectText, verbText, otherEffect, List.of());
+        ruleset.setRules(List.of(otherRule));
+        assertEquals(Set.of(strayText, effectText), ruleset.getInactiveTexts());
+        assertTrue(ruleset.getActiveTexts().contains(subjectText));
+        assertFalse(ruleset.getActiveTexts().contains(effectText));
+
+        ruleset.setRules(List.of());
+        assertTrue(ruleset.getActiveTexts().isEmpty());
+        assertEquals(Set.of(subjectText, verbText, effectText, strayText), ruleset.getInactiveTexts());
+    }
 }